@@ -564,8 +564,8 @@ abstract class AbstractData<T extends SettableData<T>> extends AbstractGettableD
             if (!thisType.equals(thatType))
                 return false;
 
-            Object thisValue = this.codecFor(i).deserialize(this.values[i], this.protocolVersion);
-            Object thatValue = that.codecFor(i).deserialize(that.values[i], that.protocolVersion);
+            Object thisValue = this.codecFor(i).deserialize(this.getValue(i), this.protocolVersion);
+            Object thatValue = that.codecFor(i).deserialize(that.getValue(i), that.protocolVersion);
             if (!MoreObjects.equal(thisValue, thatValue))
                 return false;
         }
@@ -576,8 +576,10 @@ abstract class AbstractData<T extends SettableData<T>> extends AbstractGettableD
     public int hashCode() {
         // Same as equals
         int hash = 31;
-        for (int i = 0; i < values.length; i++)
-            hash += values[i] == null ? 1 : codecFor(i).deserialize(values[i], protocolVersion).hashCode();
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer value = getValue(i);
+            hash += value == null ? 1 : codecFor(i).deserialize(value, protocolVersion).hashCode();
+        }
         return hash;
     }
 }
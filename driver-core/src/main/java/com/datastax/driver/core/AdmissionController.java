@@ -0,0 +1,152 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.BusyPoolException;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import com.datastax.driver.core.exceptions.OperationTimedOutException;
+import com.datastax.driver.core.exceptions.OverloadedException;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests of a session, with a limit that adapts to the observed latency.
+ * <p/>
+ * The controller tracks the lowest latency observed recently (the "no-load" latency). As long as requests complete
+ * within a tolerance of that latency, the limit grows (by about the square root of its value, which gives room for
+ * some queuing); when latency increases, the limit shrinks proportionally to the ratio between the two. Requests that
+ * fail because of overload (busy pools, client timeouts, server overload) back the limit off multiplicatively. The
+ * limit never exceeds the configured maximum.
+ * <p/>
+ * Requests are rejected immediately when the limit is reached, so that an overloaded client fails fast instead of
+ * piling up requests in the connection pools' queues.
+ */
+class AdmissionController {
+
+    // How much the latency can increase over the no-load latency before the limit starts to shrink
+    private static final double TOLERANCE = 2.0;
+    // The weight of each new estimate in the limit
+    private static final double SMOOTHING = 0.2;
+    // The factor applied to the limit when a request fails because of overload
+    private static final double BACKOFF_RATIO = 0.9;
+    // The no-load latency is re-sampled periodically, in case the baseline of the cluster changes
+    private static final long MIN_LATENCY_RESET_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Latency samples are only taken when the lock is free: under contention some samples are skipped, but callers
+    // never block.
+    private final ReentrantLock lock = new ReentrantLock();
+    private double estimatedLimit;
+    private long minLatency = Long.MAX_VALUE;
+    private long minLatencyResetTime;
+
+    AdmissionController(int maxLimit) {
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.min(maxLimit, 8);
+        this.estimatedLimit = maxLimit;
+        this.limit = maxLimit;
+        this.minLatencyResetTime = System.nanoTime() + MIN_LATENCY_RESET_NANOS;
+    }
+
+    /**
+     * Reserves a slot for a new request.
+     *
+     * @return whether the request was admitted; if so, either {@link #onCompleted(long, Exception)} or
+     * {@link #onCancelled()} must be called exactly once when it completes.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Releases the slot of a request that completed, and adjusts the limit accordingly.
+     *
+     * @param latencyNanos the latency of the request.
+     * @param error        the error if the request failed, or {@code null} if it succeeded.
+     */
+    void onCompleted(long latencyNanos, Exception error) {
+        int current = inFlight.getAndDecrement();
+        boolean overloaded = error != null && isOverload(error);
+        // Errors unrelated to load (syntax errors, unavailable replicas...) say nothing about the latency
+        if (error != null && !overloaded)
+            return;
+        if (!lock.tryLock())
+            return;
+        try {
+            if (overloaded)
+                onOverload();
+            else
+                onSample(latencyNanos, current, System.nanoTime());
+            limit = Math.max(minLimit, (int) estimatedLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a request that was cancelled by the client.
+     */
+    void onCancelled() {
+        inFlight.decrementAndGet();
+    }
+
+    private void onOverload() {
+        estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+    }
+
+    private void onSample(long latency, int inFlightAtCompletion, long now) {
+        if (now - minLatencyResetTime >= 0) {
+            minLatency = latency;
+            minLatencyResetTime = now + MIN_LATENCY_RESET_NANOS;
+        } else if (latency < minLatency) {
+            minLatency = latency;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * minLatency / Math.max(latency, 1)));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        // Don't grow the limit if the client is not using it: high latency would go unnoticed until it does
+        if (newLimit > estimatedLimit && inFlightAtCompletion < estimatedLimit / 2)
+            return;
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    @VisibleForTesting
+    static boolean isOverload(Exception error) {
+        if (error instanceof OperationTimedOutException || error instanceof OverloadedException)
+            return true;
+        if (error instanceof NoHostAvailableException) {
+            for (Throwable hostError : ((NoHostAvailableException) error).getErrors().values()) {
+                if (hostError instanceof BusyPoolException)
+                    return true;
+            }
+        }
+        return false;
+    }
+}
@@ -37,6 +37,11 @@ abstract class ArrayBackedResultSet implements ResultSet {
     protected final ProtocolVersion protocolVersion;
     protected final CodecRegistry codecRegistry;
 
+    // The pages that were read with zero-copy blobs, and that must be released explicitly (see release()).
+    // Guarded by this, since pages are received on I/O threads. The list is created on demand.
+    private List<Queue<List<ByteBuffer>>> retainedPages;
+    private boolean released;
+
     private ArrayBackedResultSet(ColumnDefinitions metadata, Token.Factory tokenFactory, List<ByteBuffer> firstRow, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
         this.metadata = metadata;
         this.protocolVersion = protocolVersion;
@@ -72,9 +77,14 @@ abstract class ArrayBackedResultSet implements ResultSet {
                 // this explicitly because MultiPage implementation doesn't support info == null.
                 assert r.metadata.pagingState == null || info != null;
 
-                return r.metadata.pagingState == null
-                        ? new SinglePage(columnDefs, tokenFactory, protocolVersion, columnDefs.codecRegistry, r.data, info)
-                        : new MultiPage(columnDefs, tokenFactory, protocolVersion, columnDefs.codecRegistry, r.data, info, r.metadata.pagingState, session);
+                // Only the client can release the rows, and only if it asked for it
+                boolean ownsRows = session != null && statement != null && statement.isZeroCopyBlobs();
+                Queue<List<ByteBuffer>> data = r.takeData(ownsRows);
+                ArrayBackedResultSet rs = r.metadata.pagingState == null
+                        ? new SinglePage(columnDefs, tokenFactory, protocolVersion, columnDefs.codecRegistry, data, info)
+                        : new MultiPage(columnDefs, tokenFactory, protocolVersion, columnDefs.codecRegistry, data, info, r.metadata.pagingState, session, ownsRows);
+                rs.track(data);
+                return rs;
 
             case VOID:
             case SET_KEYSPACE:
@@ -151,6 +161,35 @@ abstract class ArrayBackedResultSet implements ResultSet {
         return wasApplied;
     }
 
+    // Records a page that must be released, or releases it right away if this result set was already released.
+    void track(Queue<List<ByteBuffer>> page) {
+        if (!Responses.Result.Rows.isRetained(page))
+            return;
+        synchronized (this) {
+            if (!released) {
+                if (retainedPages == null)
+                    retainedPages = new ArrayList<Queue<List<ByteBuffer>>>();
+                retainedPages.add(page);
+                return;
+            }
+        }
+        Responses.Result.Rows.release(page);
+    }
+
+    @Override
+    public void release() {
+        List<Queue<List<ByteBuffer>>> pages;
+        synchronized (this) {
+            released = true;
+            pages = retainedPages;
+            retainedPages = null;
+        }
+        if (pages != null) {
+            for (Queue<List<ByteBuffer>> page : pages)
+                Responses.Result.Rows.release(page);
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -234,6 +273,15 @@ abstract class ArrayBackedResultSet implements ResultSet {
         private volatile FetchingState fetchState;
 
         private final SessionManager session;
+        // Whether this result set takes ownership of the rows read with zero-copy blobs
+        private final boolean ownsRows;
+
+        // Automatic prefetching: the next page is requested when the current page has no more than
+        // 'prefetchWhenRemaining' rows left, provided that less than 'maxPrefetchedPages' are already buffered.
+        // Only accessed from the consumer's thread.
+        private final double prefetchThreshold;
+        private final int maxPrefetchedPages;
+        private int prefetchWhenRemaining;
 
         private MultiPage(ColumnDefinitions metadata,
                           Token.Factory tokenFactory,
@@ -242,7 +290,8 @@ abstract class ArrayBackedResultSet implements ResultSet {
                           Queue<List<ByteBuffer>> rows,
                           ExecutionInfo info,
                           ByteBuffer pagingState,
-                          SessionManager session) {
+                          SessionManager session,
+                          boolean ownsRows) {
 
             // Note: as of Cassandra 2.1.0, it turns out that the result of a CAS update is never paged, so
             // we could hard-code the result of wasApplied in this class to "true". However, we can not be sure
@@ -253,6 +302,13 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
             this.fetchState = new FetchingState(pagingState, null);
             this.session = session;
+            this.ownsRows = ownsRows;
+
+            QueryOptions queryOptions = session.configuration().getQueryOptions();
+            double threshold = info.getStatement().getPrefetchThreshold();
+            this.prefetchThreshold = threshold < 0 ? queryOptions.getPrefetchThreshold() : threshold;
+            this.maxPrefetchedPages = queryOptions.getMaxPrefetchedPages();
+            onNewPage();
         }
 
         @Override
@@ -264,7 +320,9 @@ abstract class ArrayBackedResultSet implements ResultSet {
         @Override
         public Row one() {
             prepareNextRow();
-            return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, currentPage.poll());
+            Row row = ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, currentPage.poll());
+            maybePrefetch();
+            return row;
         }
 
         @Override
@@ -290,6 +348,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
                 Queue<List<ByteBuffer>> nextPage = nextPages.poll();
                 if (nextPage != null) {
                     currentPage = nextPage;
+                    onNewPage();
                     continue;
                 }
                 if (fetchingState == null)
@@ -306,6 +365,24 @@ abstract class ArrayBackedResultSet implements ResultSet {
             }
         }
 
+        private void onNewPage() {
+            // A threshold of 1 means "fetch when exhausted", which prepareNextRow already does
+            prefetchWhenRemaining = prefetchThreshold >= 1
+                    ? -1
+                    : currentPage.size() - (int) Math.ceil(prefetchThreshold * currentPage.size());
+        }
+
+        private void maybePrefetch() {
+            if (currentPage.size() > prefetchWhenRemaining || currentPage.isEmpty())
+                return;
+            FetchingState fetchingState = this.fetchState;
+            if (fetchingState == null || fetchingState.inProgress != null)
+                return;
+            if (nextPages.size() >= maxPrefetchedPages)
+                return;
+            fetchMoreResults(fetchingState);
+        }
+
         @Override
         public ListenableFuture<ResultSet> fetchMoreResults() {
             return fetchMoreResults(this.fetchState);
@@ -353,7 +430,9 @@ abstract class ArrayBackedResultSet implements ResultSet {
                                 if (rm.kind == Responses.Result.Kind.ROWS) {
                                     Responses.Result.Rows rows = (Responses.Result.Rows) rm;
                                     info = update(info, rm, MultiPage.this.session, rows.metadata.pagingState, protocolVersion, codecRegistry, statement);
-                                    MultiPage.this.nextPages.offer(rows.data);
+                                    Queue<List<ByteBuffer>> page = rows.takeData(ownsRows);
+                                    MultiPage.this.track(page);
+                                    MultiPage.this.nextPages.offer(page);
                                     MultiPage.this.fetchState = rows.metadata.pagingState == null ? null : new FetchingState(rows.metadata.pagingState, null);
                                 } else if (rm.kind == Responses.Result.Kind.VOID) {
                                     // We shouldn't really get a VOID message here but well, no harm in handling it I suppose
@@ -7,6 +7,7 @@
 package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.DriverInternalError;
+import com.google.common.reflect.TypeToken;
 
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -72,6 +73,21 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
         return metadata.getFirstIdx(name);
     }
 
+    @Override
+    protected <T> TypeCodec<T> codecFor(int i) {
+        return metadata.codecFor(i, null, metadata.codecRegistry);
+    }
+
+    @Override
+    protected <T> TypeCodec<T> codecFor(int i, Class<T> javaClass) {
+        return metadata.codecFor(i, javaClass, metadata.codecRegistry);
+    }
+
+    @Override
+    protected <T> TypeCodec<T> codecFor(int i, TypeToken<T> javaType) {
+        return metadata.codecFor(i, javaType, metadata.codecRegistry);
+    }
+
     @Override
     public Token getToken(int i) {
         if (tokenFactory == null)
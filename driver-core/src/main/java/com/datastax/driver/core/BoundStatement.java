@@ -8,6 +8,7 @@ package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.InvalidTypeException;
 import com.google.common.reflect.TypeToken;
+import io.netty.buffer.ByteBuf;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -45,6 +46,8 @@ import java.util.*;
  */
 public class BoundStatement extends Statement implements SettableData<BoundStatement>, GettableData {
     static final ByteBuffer UNSET = ByteBuffer.allocate(0);
+    // placeholder for values whose serialization is deferred, see DataWrapper
+    static final ByteBuffer DEFERRED = ByteBuffer.allocate(0);
 
     final PreparedStatement statement;
 
@@ -57,6 +60,11 @@ public class BoundStatement extends Statement implements SettableData<BoundState
     private ByteBuffer routingKey;
     private Token routingToken;
 
+    // The routing key composed from bound values, and the token of the routing key. They are cached until the routing
+    // key or one of the values it is made of changes.
+    private volatile ByteBuffer composedRoutingKey;
+    private volatile CachedToken cachedToken;
+
     /**
      * Creates a new {@code BoundStatement} from the provided prepared
      * statement.
@@ -182,17 +190,22 @@ public class BoundStatement extends Statement implements SettableData<BoundState
 
         for (int i = 0; i < values.length; i++) {
             Object value = values[i];
+            wrapper.clearDeferred(i);
             if (value == null) {
                 wrapper.values[i] = null;
             } else {
                 ProtocolVersion protocolVersion = statement.getPreparedId().protocolVersion;
-                if (value instanceof Token)
+                if (value instanceof Token) {
                     // bypass CodecRegistry for token values
                     wrapper.values[i] = ((Token) value).serialize(protocolVersion);
-                else
-                    wrapper.values[i] = wrapper.codecFor(i, value).serialize(value, protocolVersion);
+                } else {
+                    TypeCodec<Object> codec = wrapper.codecFor(i, value);
+                    if (!wrapper.defer(i, codec, value))
+                        wrapper.values[i] = codec.serialize(value, protocolVersion);
+                }
             }
         }
+        invalidateRoutingKey();
         return this;
     }
 
@@ -231,16 +244,21 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         int[] rkIndexes = statement.getPreparedId().routingKeyIndexes;
         if (rkIndexes != null) {
             if (rkIndexes.length == 1) {
-                return wrapper.values[rkIndexes[0]];
+                return wrapper.getValue(rkIndexes[0]);
             } else {
+                ByteBuffer composed = composedRoutingKey;
+                if (composed != null)
+                    return composed;
                 ByteBuffer[] components = new ByteBuffer[rkIndexes.length];
                 for (int i = 0; i < components.length; ++i) {
-                    ByteBuffer value = wrapper.values[rkIndexes[i]];
+                    ByteBuffer value = wrapper.getValue(rkIndexes[i]);
                     if (value == null)
                         return null;
                     components[i] = value;
                 }
-                return SimpleStatement.compose(components);
+                composed = SimpleStatement.compose(components);
+                composedRoutingKey = composed;
+                return composed;
             }
         }
         return null;
@@ -253,6 +271,55 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         return routingToken;
     }
 
+    /**
+     * Returns the token of the routing key of this statement, as computed by the given partitioner.
+     * <p/>
+     * The token is cached, so that executing the statement several times (or computing several query plans for it)
+     * only hashes the routing key once. This is not done for a routing key that was set on the prepared statement,
+     * since it could be changed after this statement was bound.
+     */
+    Token getRoutingToken(Token.Factory factory) {
+        CachedToken cached = cachedToken;
+        if (cached != null && cached.factory == factory)
+            return cached.token;
+        ByteBuffer key = getRoutingKey(statement.getPreparedId().protocolVersion, codecRegistry);
+        if (key == null)
+            return null;
+        Token token = factory.hash(key);
+        if (routingKey != null || statement.getRoutingKey() == null)
+            cachedToken = new CachedToken(factory, token);
+        return token;
+    }
+
+    private void invalidateRoutingKey() {
+        if (composedRoutingKey != null)
+            composedRoutingKey = null;
+        if (cachedToken != null)
+            cachedToken = null;
+    }
+
+    private void valueChanged(int i) {
+        int[] rkIndexes = statement.getPreparedId().routingKeyIndexes;
+        if (rkIndexes != null) {
+            for (int rkIndex : rkIndexes) {
+                if (rkIndex == i) {
+                    invalidateRoutingKey();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class CachedToken {
+        private final Token.Factory factory;
+        private final Token token;
+
+        private CachedToken(Token.Factory factory, Token token) {
+            this.factory = factory;
+            this.token = token;
+        }
+    }
+
     /**
      * Sets a routing token for this statement.
      *
@@ -276,6 +343,7 @@ public class BoundStatement extends Statement implements SettableData<BoundState
      */
     public BoundStatement setRoutingKey(ByteBuffer routingKey) {
         this.routingKey = routingKey;
+        this.cachedToken = null;
         return this;
     }
 
@@ -294,6 +362,7 @@ public class BoundStatement extends Statement implements SettableData<BoundState
      */
     public BoundStatement setRoutingKey(ByteBuffer... routingKeyComponents) {
         this.routingKey = SimpleStatement.compose(routingKeyComponents);
+        this.cachedToken = null;
         return this;
     }
 
@@ -1388,8 +1457,108 @@ public class BoundStatement extends Statement implements SettableData<BoundState
 
     static class DataWrapper extends AbstractData<BoundStatement> {
 
+        // If enabled, int, bigint, float and double values set with the built-in codecs are recorded as raw bits,
+        // and written directly to the outgoing frame when the request is encoded (see DeferredValues).
+        // values[i] is then DEFERRED, and deferredSizes[i] holds the size of the serialized value (4 or 8).
+        private final boolean deferSerialization;
+        private byte[] deferredSizes;
+        private long[] deferredBits;
+
         DataWrapper(BoundStatement wrapped, int size) {
             super(wrapped.statement.getPreparedId().protocolVersion, wrapped, size);
+            this.deferSerialization = wrapped.statement instanceof DefaultPreparedStatement
+                    && ((DefaultPreparedStatement) wrapped.statement).cluster.getConfiguration().getQueryOptions().isDeferValueSerialization();
+        }
+
+        /**
+         * Records {@code value} to be serialized when the request is encoded, if deferred serialization is enabled
+         * and {@code codec} is the built-in codec of a fixed-size number.
+         *
+         * @return whether the value was recorded.
+         */
+        boolean defer(int i, TypeCodec<?> codec, Object value) {
+            if (!deferSerialization)
+                return false;
+            if (codec == TypeCodec.cint())
+                defer(i, 4, (Integer) value);
+            else if (codec == TypeCodec.bigint())
+                defer(i, 8, (Long) value);
+            else if (codec == TypeCodec.cfloat())
+                defer(i, 4, Float.floatToRawIntBits((Float) value));
+            else if (codec == TypeCodec.cdouble())
+                defer(i, 8, Double.doubleToRawLongBits((Double) value));
+            else
+                return false;
+            return true;
+        }
+
+        private BoundStatement defer(int i, int size, long bits) {
+            if (deferredSizes == null) {
+                deferredSizes = new byte[values.length];
+                deferredBits = new long[values.length];
+            }
+            wrapped.valueChanged(i);
+            values[i] = DEFERRED;
+            deferredBits[i] = bits;
+            deferredSizes[i] = (byte) size;
+            return wrapped;
+        }
+
+        void clearDeferred(int i) {
+            if (deferredSizes != null)
+                deferredSizes[i] = 0;
+        }
+
+        private boolean isDeferred(int i) {
+            return deferredSizes != null && deferredSizes[i] != 0;
+        }
+
+        /**
+         * Returns the values to send with the request; deferred values are serialized as they are encoded.
+         */
+        List<ByteBuffer> encodableValues() {
+            return deferredSizes == null ? Arrays.asList(values) : new DeferredValues(this);
+        }
+
+        @Override
+        public BoundStatement setInt(int i, int v) {
+            if (deferSerialization && codecFor(i, Integer.class) == TypeCodec.cint())
+                return defer(i, 4, v);
+            return super.setInt(i, v);
+        }
+
+        @Override
+        public BoundStatement setLong(int i, long v) {
+            if (deferSerialization && codecFor(i, Long.class) == TypeCodec.bigint())
+                return defer(i, 8, v);
+            return super.setLong(i, v);
+        }
+
+        @Override
+        public BoundStatement setFloat(int i, float v) {
+            if (deferSerialization && codecFor(i, Float.class) == TypeCodec.cfloat())
+                return defer(i, 4, Float.floatToRawIntBits(v));
+            return super.setFloat(i, v);
+        }
+
+        @Override
+        public BoundStatement setDouble(int i, double v) {
+            if (deferSerialization && codecFor(i, Double.class) == TypeCodec.cdouble())
+                return defer(i, 8, Double.doubleToRawLongBits(v));
+            return super.setDouble(i, v);
+        }
+
+        @Override
+        protected ByteBuffer getValue(int i) {
+            if (!isDeferred(i))
+                return values[i];
+            // not cached in values[i], since the request might be encoded concurrently
+            ByteBuffer bb = ByteBuffer.allocate(deferredSizes[i]);
+            if (deferredSizes[i] == 4)
+                bb.putInt(0, (int) deferredBits[i]);
+            else
+                bb.putLong(0, deferredBits[i]);
+            return bb;
         }
 
         protected int[] getAllIndexesOf(String name) {
@@ -1404,9 +1573,83 @@ public class BoundStatement extends Statement implements SettableData<BoundState
             return wrapped.statement.getVariables().getName(i);
         }
 
+        @Override
+        protected <T> TypeCodec<T> codecFor(int i) {
+            return wrapped.statement.getVariables().codecFor(i, null, wrapped.codecRegistry);
+        }
+
+        @Override
+        protected <T> TypeCodec<T> codecFor(int i, Class<T> javaClass) {
+            return wrapped.statement.getVariables().codecFor(i, javaClass, wrapped.codecRegistry);
+        }
+
+        @Override
+        protected <T> TypeCodec<T> codecFor(int i, TypeToken<T> javaType) {
+            return wrapped.statement.getVariables().codecFor(i, javaType, wrapped.codecRegistry);
+        }
+
+        @Override
+        protected BoundStatement setValue(int i, ByteBuffer value) {
+            wrapped.valueChanged(i);
+            clearDeferred(i);
+            return super.setValue(i, value);
+        }
+
         @Override
         protected CodecRegistry getCodecRegistry() {
             return wrapped.codecRegistry;
         }
     }
+
+    /**
+     * The values of a statement that has deferred values, as sent with its request.
+     * <p/>
+     * {@link CBUtil#writeValueList(List, ByteBuf)} writes deferred values directly to the frame; accessing them
+     * through this list serializes them.
+     */
+    static class DeferredValues extends AbstractList<ByteBuffer> {
+
+        private final DataWrapper wrapper;
+
+        private DeferredValues(DataWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public ByteBuffer get(int i) {
+            return wrapper.getValue(i);
+        }
+
+        @Override
+        public int size() {
+            return wrapper.values.length;
+        }
+
+        void encode(ByteBuf dest) {
+            dest.writeShort(size());
+            for (int i = 0; i < size(); i++) {
+                if (wrapper.isDeferred(i)) {
+                    int size = wrapper.deferredSizes[i];
+                    dest.writeInt(size);
+                    if (size == 4)
+                        dest.writeInt((int) wrapper.deferredBits[i]);
+                    else
+                        dest.writeLong(wrapper.deferredBits[i]);
+                } else {
+                    CBUtil.writeValue(wrapper.values[i], dest);
+                }
+            }
+        }
+
+        int encodedSize() {
+            int size = 2;
+            for (int i = 0; i < size(); i++) {
+                if (wrapper.isDeferred(i))
+                    size += 4 + wrapper.deferredSizes[i];
+                else
+                    size += CBUtil.sizeOfValue(wrapper.values[i]);
+            }
+            return size;
+        }
+    }
 }
@@ -336,12 +336,18 @@ abstract class CBUtil { // TODO rename
     }
 
     public static void writeValueList(List<ByteBuffer> values, ByteBuf cb) {
+        if (values instanceof BoundStatement.DeferredValues) {
+            ((BoundStatement.DeferredValues) values).encode(cb);
+            return;
+        }
         cb.writeShort(values.size());
         for (ByteBuffer value : values)
             CBUtil.writeValue(value, cb);
     }
 
     public static int sizeOfValueList(List<ByteBuffer> values) {
+        if (values instanceof BoundStatement.DeferredValues)
+            return ((BoundStatement.DeferredValues) values).encodedSize();
         int size = 2;
         for (ByteBuffer value : values)
             size += CBUtil.sizeOfValue(value);
@@ -0,0 +1,62 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FlushPolicy} that delays flushes for a bounded amount of time, in order to coalesce more requests
+ * into each write system call.
+ * <p/>
+ * A channel is flushed as soon as one of the following conditions is met:
+ * <ul>
+ * <li>its oldest unflushed frame has been waiting for at least the maximum delay;</li>
+ * <li>the number of unflushed frames reaches the maximum frame count;</li>
+ * <li>the number of bytes in its outbound buffer reaches the maximum byte count.</li>
+ * </ul>
+ * Note that the delay is only as precise as the I/O thread's pass interval (approximately 10 microseconds).
+ * <p/>
+ * Under high throughput, this policy reduces the number of system calls at the expense of a few microseconds of
+ * latency; under low throughput, it adds up to the maximum delay to every request, so it should be used with care.
+ * You can monitor its effect with {@link Metrics#getFramesPerFlush()}.
+ */
+public class CoalescingFlushPolicy implements FlushPolicy {
+
+    private final long maxDelayNanos;
+    private final int maxFrames;
+    private final long maxBytes;
+
+    /**
+     * Builds a new instance.
+     *
+     * @param maxDelay  the maximum amount of time a frame can wait before its channel gets flushed. Must be positive
+     *                  or zero.
+     * @param unit      the unit of {@code maxDelay}.
+     * @param maxFrames the number of unflushed frames above which a channel gets flushed immediately. Must be strictly
+     *                  positive.
+     * @param maxBytes  the number of bytes in the outbound buffer above which a channel gets flushed immediately. Must
+     *                  be strictly positive.
+     * @throws IllegalArgumentException if one of the arguments does not respect the preconditions above.
+     */
+    public CoalescingFlushPolicy(long maxDelay, TimeUnit unit, int maxFrames, long maxBytes) {
+        Preconditions.checkArgument(maxDelay >= 0, "max delay must be positive or zero (was %s)", maxDelay);
+        Preconditions.checkArgument(maxFrames > 0, "max frames must be strictly positive (was %s)", maxFrames);
+        Preconditions.checkArgument(maxBytes > 0, "max bytes must be strictly positive (was %s)", maxBytes);
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.maxFrames = maxFrames;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public boolean shouldFlush(int pendingFrames, long pendingBytes, long nanosSinceFirstWrite) {
+        return nanosSinceFirstWrite >= maxDelayNanos
+                || pendingFrames >= maxFrames
+                || pendingBytes >= maxBytes;
+    }
+}
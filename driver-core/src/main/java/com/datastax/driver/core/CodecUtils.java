@@ -138,6 +138,22 @@ public final class CodecUtils {
         }
     }
 
+    /**
+     * Writes a collection element, preceded by its size.
+     * <p/>
+     * Elements whose size is known to {@code codec} are encoded in place, the others must have been serialized
+     * beforehand into {@code serialized[index]}.
+     */
+    static <T> void writeElement(ByteBuffer output, TypeCodec<T> codec, T element, ByteBuffer[] serialized, int index, ProtocolVersion version) {
+        int size = codec.encodedSize(element, version);
+        if (size < 0) {
+            writeValue(output, serialized[index], version);
+        } else {
+            writeSize(output, size, version);
+            codec.encode(element, output, version);
+        }
+    }
+
     /**
      * Read {@code length} bytes from {@code bb} into a new ByteBuffer.
      *
@@ -204,7 +220,7 @@ public final class CodecUtils {
         return ((long) days + EPOCH_AS_CQL_LONG);
     }
 
-    private static int sizeOfCollectionSize(ProtocolVersion version) {
+    static int sizeOfCollectionSize(ProtocolVersion version) {
         switch (version) {
             case V1:
             case V2:
@@ -219,11 +235,28 @@ public final class CodecUtils {
         }
     }
 
-    private static int sizeOfValue(ByteBuffer value, ProtocolVersion version) {
+    static int sizeOfValue(ByteBuffer value, ProtocolVersion version) {
+        switch (version) {
+            case V1:
+            case V2:
+                return sizeOfValue(value.remaining(), version);
+            case V3:
+            case V4:
+            case V5:
+            case DSE_V1:
+                return value == null ? 4 : 4 + value.remaining();
+            default:
+                throw version.unsupported();
+        }
+    }
+
+    /**
+     * Returns the size of a serialized collection element of {@code elemSize} bytes, including its size.
+     */
+    static int sizeOfValue(int elemSize, ProtocolVersion version) {
         switch (version) {
             case V1:
             case V2:
-                int elemSize = value.remaining();
                 if (elemSize > 65535)
                     throw new IllegalArgumentException(String.format("Native protocol version %d supports only elements with size up to 65535 bytes - but element size is %d bytes", version.toInt(), elemSize));
                 return 2 + elemSize;
@@ -231,7 +264,7 @@ public final class CodecUtils {
             case V4:
             case V5:
             case DSE_V1:
-                return value == null ? 4 : 4 + value.remaining();
+                return 4 + elemSize;
             default:
                 throw version.unsupported();
         }
@@ -6,6 +6,8 @@
  */
 package com.datastax.driver.core;
 
+import com.google.common.reflect.TypeToken;
+
 import java.util.*;
 
 /**
@@ -52,10 +54,15 @@ public class ColumnDefinitions implements Iterable<ColumnDefinitions.Definition>
     private final Map<String, int[]> byName;
     final CodecRegistry codecRegistry;
 
+    // The codec last resolved for each column, see codecFor(). Entries are immutable, so concurrent readers and
+    // writers can share this array without synchronization (at worst, a codec gets resolved twice).
+    private final CachedCodec[] codecs;
+
     ColumnDefinitions(Definition[] defs, CodecRegistry codecRegistry) {
 
         this.byIdx = defs;
         this.codecRegistry = codecRegistry;
+        this.codecs = new CachedCodec[defs.length];
         this.byName = new HashMap<String, int[]>(defs.length);
 
         for (int i = 0; i < defs.length; i++) {
@@ -102,6 +109,45 @@ public class ColumnDefinitions implements Iterable<ColumnDefinitions.Definition>
         return findFirstIdx(name);
     }
 
+    /**
+     * Returns the codec to use for the {@code i}th column and the given Java type (a {@code Class} or
+     * {@code TypeToken}), or the default codec of the column if {@code javaType} is {@code null}.
+     * <p/>
+     * A column is almost always accessed with the same Java type, so the last codec resolved for each column is
+     * cached here. This spares a registry lookup for each value of each row of a result set, or each value bound to a
+     * prepared statement.
+     */
+    @SuppressWarnings("unchecked")
+    <T> TypeCodec<T> codecFor(int i, Object javaType, CodecRegistry codecRegistry) {
+        CachedCodec cached = codecs[i];
+        if (cached != null && cached.codecRegistry == codecRegistry
+                && (cached.javaType == javaType || (javaType != null && javaType.equals(cached.javaType))))
+            return (TypeCodec<T>) cached.codec;
+
+        DataType cqlType = byIdx[i].type;
+        TypeCodec<T> codec;
+        if (javaType == null)
+            codec = codecRegistry.codecFor(cqlType);
+        else if (javaType instanceof Class)
+            codec = codecRegistry.codecFor(cqlType, (Class<T>) javaType);
+        else
+            codec = codecRegistry.codecFor(cqlType, (TypeToken<T>) javaType);
+        codecs[i] = new CachedCodec(codecRegistry, javaType, codec);
+        return codec;
+    }
+
+    private static class CachedCodec {
+        private final CodecRegistry codecRegistry;
+        private final Object javaType;
+        private final TypeCodec<?> codec;
+
+        private CachedCodec(CodecRegistry codecRegistry, Object javaType, TypeCodec<?> codec) {
+            this.codecRegistry = codecRegistry;
+            this.javaType = javaType;
+            this.codec = codec;
+        }
+    }
+
     /**
      * Returns an iterator over the {@link Definition} contained in this metadata.
      * <p/>
@@ -6,6 +6,7 @@
  */
 package com.datastax.driver.core;
 
+import com.codahale.metrics.Histogram;
 import com.datastax.driver.core.Responses.Result.SetKeyspace;
 import com.datastax.driver.core.exceptions.*;
 import com.datastax.driver.core.utils.MoreFutures;
@@ -32,14 +33,16 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.datastax.driver.core.Message.Response.Type.ERROR;
 import static io.netty.handler.timeout.IdleState.READER_IDLE;
@@ -76,6 +79,9 @@ class Connection {
 
     // Used by connection pooling to count how many requests are "in flight" on that connection.
     final AtomicInteger inFlight = new AtomicInteger(0);
+    // The highest value of inFlight since the pool last checked it (only maintained for some connection selection
+    // strategies, see HostConnectionPool). Updated without synchronization, so this is only an approximation.
+    volatile int maxInFlight;
 
     private final AtomicInteger writer = new AtomicInteger(0);
 
@@ -128,10 +134,11 @@ class Connection {
             Bootstrap bootstrap = factory.newBootstrap();
             ProtocolOptions protocolOptions = factory.configuration.getProtocolOptions();
             bootstrap.handler(
-                    new Initializer(this, protocolVersion, protocolOptions.getCompression().compressor(), protocolOptions.getSSLOptions(),
+                    new Initializer(this, protocolVersion, protocolOptions.getCompression().compressor(), protocolOptions,
                             factory.configuration.getPoolingOptions().getHeartbeatIntervalSeconds(),
                             factory.configuration.getNettyOptions(),
-                            factory.configuration.getCodecRegistry()));
+                            factory.configuration.getCodecRegistry(),
+                            factory.configuration.getQueryOptions()));
 
             ChannelFuture future = bootstrap.connect(address);
 
@@ -718,7 +725,7 @@ class Connection {
             logger.debug("{} has already terminated", this);
             return true;
         } else {
-            if (force || dispatcher.pending.isEmpty()) {
+            if (force || dispatcher.hasNoPendingHandlers()) {
                 if (force)
                     logger.warn("Forcing termination of {}. This should not happen and is likely a bug, please report.", this);
                 future.force();
@@ -756,6 +763,12 @@ class Connection {
         volatile ProtocolVersion protocolVersion;
         private final NettyOptions nettyOptions;
 
+        // Flushers are per cluster (not global) because they depend on this cluster's flush policy and metrics.
+        private final ConcurrentMap<EventLoop, Flusher> flusherLookup = new MapMaker()
+                .concurrencyLevel(16)
+                .weakKeys()
+                .makeMap();
+
         Factory(Cluster.Manager manager, Configuration configuration) {
             this.defaultHandler = manager;
             this.manager = manager;
@@ -858,6 +871,19 @@ class Connection {
             return configuration.getSocketOptions().getReadTimeoutMillis();
         }
 
+        private Flusher getFlusher(EventLoop loop) {
+            Flusher flusher = flusherLookup.get(loop);
+            if (flusher == null) {
+                Metrics metrics = manager.metrics;
+                Flusher alt = flusherLookup.putIfAbsent(loop, flusher = new Flusher(loop,
+                        configuration.getSocketOptions(),
+                        metrics == null ? null : metrics.getFramesPerFlush()));
+                if (alt != null)
+                    flusher = alt;
+            }
+            return flusher;
+        }
+
         private Bootstrap newBootstrap() {
             Bootstrap b = new Bootstrap();
             b.group(eventLoopGroup)
@@ -904,13 +930,18 @@ class Connection {
 
     private static final class Flusher implements Runnable {
         final WeakReference<EventLoop> eventLoopRef;
+        final SocketOptions socketOptions;
+        final Histogram framesPerFlush; // null if metrics are disabled
         final Queue<FlushItem> queued = new ConcurrentLinkedQueue<FlushItem>();
         final AtomicBoolean running = new AtomicBoolean(false);
-        final HashSet<Channel> channels = new HashSet<Channel>();
+        // Channels that have been written to but not flushed yet
+        final HashMap<Channel, PendingFlush> channels = new HashMap<Channel, PendingFlush>();
         int runsWithNoWork = 0;
 
-        private Flusher(EventLoop eventLoop) {
+        private Flusher(EventLoop eventLoop, SocketOptions socketOptions, Histogram framesPerFlush) {
             this.eventLoopRef = new WeakReference<EventLoop>(eventLoop);
+            this.socketOptions = socketOptions;
+            this.framesPerFlush = framesPerFlush;
         }
 
         void start() {
@@ -925,25 +956,42 @@ class Connection {
         public void run() {
 
             boolean doneWork = false;
+            long now = System.nanoTime();
             FlushItem flush;
             while (null != (flush = queued.poll())) {
                 Channel channel = flush.channel;
                 if (channel.isActive()) {
-                    channels.add(channel);
+                    PendingFlush pending = channels.get(channel);
+                    if (pending == null)
+                        channels.put(channel, pending = new PendingFlush(now));
+                    pending.frames += 1;
                     channel.write(flush.request).addListener(flush.listener);
                     doneWork = true;
                 }
             }
 
-            // Always flush what we have (don't artificially delay to try to coalesce more messages)
-            for (Channel channel : channels)
-                channel.flush();
-            channels.clear();
+            // Let the policy decide which channels to flush now; the others will be reconsidered on the next run.
+            FlushPolicy policy = socketOptions.getFlushPolicy();
+            Iterator<Map.Entry<Channel, PendingFlush>> iterator = channels.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Channel, PendingFlush> entry = iterator.next();
+                Channel channel = entry.getKey();
+                PendingFlush pending = entry.getValue();
+                if (!channel.isActive()) {
+                    // The pending writes will fail anyway, don't keep a reference to the channel
+                    iterator.remove();
+                } else if (policy.shouldFlush(pending.frames, pendingBytes(channel), now - pending.firstWriteNanos)) {
+                    channel.flush();
+                    if (framesPerFlush != null)
+                        framesPerFlush.update(pending.frames);
+                    iterator.remove();
+                }
+            }
 
             if (doneWork) {
                 runsWithNoWork = 0;
-            } else {
-                // either reschedule or cancel
+            } else if (channels.isEmpty()) {
+                // either reschedule or cancel (never cancel while some writes haven't been flushed)
                 if (++runsWithNoWork > 5) {
                     running.set(false);
                     if (queued.isEmpty() || !running.compareAndSet(false, true))
@@ -956,12 +1004,21 @@ class Connection {
                 eventLoop.schedule(this, 10000, TimeUnit.NANOSECONDS);
             }
         }
+
+        private static long pendingBytes(Channel channel) {
+            ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+            return outboundBuffer == null ? -1 : outboundBuffer.totalPendingWriteBytes();
+        }
     }
 
-    private static final ConcurrentMap<EventLoop, Flusher> flusherLookup = new MapMaker()
-            .concurrencyLevel(16)
-            .weakKeys()
-            .makeMap();
+    private static class PendingFlush {
+        final long firstWriteNanos;
+        int frames;
+
+        private PendingFlush(long firstWriteNanos) {
+            this.firstWriteNanos = firstWriteNanos;
+        }
+    }
 
     private static class FlushItem {
         final Channel channel;
@@ -976,14 +1033,7 @@ class Connection {
     }
 
     private void flush(FlushItem item) {
-        EventLoop loop = item.channel.eventLoop();
-        Flusher flusher = flusherLookup.get(loop);
-        if (flusher == null) {
-            Flusher alt = flusherLookup.putIfAbsent(loop, flusher = new Flusher(loop));
-            if (alt != null)
-                flusher = alt;
-        }
-
+        Flusher flusher = factory.getFlusher(item.channel.eventLoop());
         flusher.queued.add(item);
         flusher.start();
     }
@@ -991,7 +1041,11 @@ class Connection {
     class Dispatcher extends SimpleChannelInboundHandler<Message.Response> {
 
         final StreamIdGenerator streamIdHandler;
-        private final ConcurrentMap<Integer, ResponseHandler> pending = new ConcurrentHashMap<Integer, ResponseHandler>();
+        // Handlers indexed by stream id. Stream ids are dense and bounded, so this avoids boxing the id and
+        // allocating a map entry for every request.
+        private final AtomicReferenceArray<ResponseHandler> pending;
+        // Number of non-null entries in pending, so that closing connections don't have to scan all stream ids.
+        private final AtomicInteger pendingCount = new AtomicInteger();
 
         Dispatcher() {
             ProtocolVersion protocolVersion = factory.protocolVersion;
@@ -1001,11 +1055,25 @@ class Connection {
                 protocolVersion = ProtocolVersion.V2;
             }
             streamIdHandler = StreamIdGenerator.newInstance(protocolVersion);
+            pending = new AtomicReferenceArray<ResponseHandler>(streamIdHandler.maxIds());
         }
 
         void add(ResponseHandler handler) {
-            ResponseHandler old = pending.put(handler.streamId, handler);
-            assert old == null;
+            boolean added = pending.compareAndSet(handler.streamId, null, handler);
+            assert added;
+            pendingCount.incrementAndGet();
+        }
+
+        // Removes the handler registered for the given stream id, if it is still the given one.
+        boolean remove(int streamId, ResponseHandler handler) {
+            boolean removed = pending.compareAndSet(streamId, handler, null);
+            if (removed)
+                pendingCount.decrementAndGet();
+            return removed;
+        }
+
+        boolean hasNoPendingHandlers() {
+            return pendingCount.get() == 0;
         }
 
         void removeHandler(ResponseHandler handler, boolean releaseStreamId) {
@@ -1018,7 +1086,7 @@ class Connection {
             // If a RequestHandler is cancelled right when the response arrives, this method (called with releaseStreamId=false) will race with messageReceived.
             // messageReceived could have already released the streamId, which could have already been reused by another request. We must not remove the handler
             // if it's not ours, because that would cause the other request to hang forever.
-            boolean removed = pending.remove(handler.streamId, handler);
+            boolean removed = remove(handler.streamId, handler);
             if (!removed) {
                 // We raced, so if we marked the streamId above, that was wrong.
                 if (!releaseStreamId)
@@ -1062,6 +1130,7 @@ class Connection {
                 if (logger.isDebugEnabled())
                     logger.debug("{} Response received on stream {} but no handler set anymore (either the request has "
                             + "timed out or it was closed due to another error). Received message is {}", Connection.this, streamId, asDebugString(response));
+                releaseUnclaimedRows(response);
                 return;
             }
             // If the handler does not support multiple responses, then release it, otherwise the callback must do so
@@ -1071,7 +1140,11 @@ class Connection {
                 handler.release();
 
             handler.cancelTimeout();
-            handler.callback.onSet(Connection.this, response, System.nanoTime() - handler.startTime, handler.retryCount);
+            try {
+                handler.callback.onSet(Connection.this, response, System.nanoTime() - handler.startTime, handler.retryCount);
+            } finally {
+                releaseUnclaimedRows(response);
+            }
 
             // If we happen to be closed and we're the last outstanding request, we need to terminate the connection
             // (note: this is racy as the signaling can be called more than once, but that's not a problem)
@@ -1079,6 +1152,13 @@ class Connection {
                 tryTerminate(false);
         }
 
+        // With zero-copy blobs, the rows of a result are views over the response buffer, which must be released
+        // unless the callback took ownership of them.
+        private void releaseUnclaimedRows(Message.Response response) {
+            if (response instanceof Responses.Result.Rows)
+                ((Responses.Result.Rows) response).releaseUnclaimed();
+        }
+
         @Override
         public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
             if (isInitialized && !isClosed() && evt instanceof IdleStateEvent && ((IdleStateEvent) evt).state() == READER_IDLE) {
@@ -1115,7 +1195,7 @@ class Connection {
                 if (error != null && error instanceof FrameTooLongException) {
                     FrameTooLongException ftle = (FrameTooLongException) error;
                     int streamId = ftle.getStreamId();
-                    ResponseHandler handler = pending.remove(streamId);
+                    ResponseHandler handler = pending.getAndSet(streamId, null);
                     streamIdHandler.release(streamId);
                     if (handler == null) {
                         streamIdHandler.unmark(streamId);
@@ -1124,6 +1204,7 @@ class Connection {
                                     + "timed out or it was closed due to another error).", Connection.this, streamId);
                         return;
                     }
+                    pendingCount.decrementAndGet();
                     handler.cancelTimeout();
                     handler.callback.onException(Connection.this, ftle, System.nanoTime() - handler.startTime, handler.retryCount);
                     return;
@@ -1133,12 +1214,13 @@ class Connection {
         }
 
         void errorOutAllHandler(ConnectionException ce) {
-            Iterator<ResponseHandler> iter = pending.values().iterator();
-            while (iter.hasNext()) {
-                ResponseHandler handler = iter.next();
+            for (int i = 0; i < pending.length(); i++) {
+                ResponseHandler handler = pending.get(i);
+                if (handler == null)
+                    continue;
                 handler.cancelTimeout();
                 handler.callback.onException(Connection.this, ce, System.nanoTime() - handler.startTime, handler.retryCount);
-                iter.remove();
+                remove(i, handler);
             }
         }
     }
@@ -1382,7 +1464,7 @@ class Connection {
          * Remove this handler and release the stream id.
          */
         void release() {
-            connection.dispatcher.pending.remove(streamId);
+            connection.dispatcher.remove(streamId, this);
             connection.dispatcher.streamIdHandler.release(streamId);
         }
 
@@ -1420,18 +1502,22 @@ class Connection {
         private final ProtocolVersion protocolVersion;
         private final Connection connection;
         private final FrameCompressor compressor;
+        private final ProtocolOptions protocolOptions;
         private final SSLOptions sslOptions;
         private final NettyOptions nettyOptions;
         private final ChannelHandler idleStateHandler;
         private final CodecRegistry codecRegistry;
+        private final QueryOptions queryOptions;
 
-        Initializer(Connection connection, ProtocolVersion protocolVersion, FrameCompressor compressor, SSLOptions sslOptions, int heartBeatIntervalSeconds, NettyOptions nettyOptions, CodecRegistry codecRegistry) {
+        Initializer(Connection connection, ProtocolVersion protocolVersion, FrameCompressor compressor, ProtocolOptions protocolOptions, int heartBeatIntervalSeconds, NettyOptions nettyOptions, CodecRegistry codecRegistry, QueryOptions queryOptions) {
             this.connection = connection;
             this.protocolVersion = protocolVersion;
             this.compressor = compressor;
-            this.sslOptions = sslOptions;
+            this.protocolOptions = protocolOptions;
+            this.sslOptions = protocolOptions.getSSLOptions();
             this.nettyOptions = nettyOptions;
             this.codecRegistry = codecRegistry;
+            this.queryOptions = queryOptions;
             this.idleStateHandler = new IdleStateHandler(heartBeatIntervalSeconds, 0, 0);
         }
 
@@ -1440,6 +1526,8 @@ class Connection {
 
             // set the codec registry so that it can be accessed by ProtocolDecoder
             channel.attr(Message.CODEC_REGISTRY_ATTRIBUTE_KEY).set(codecRegistry);
+            // and the query options, so that it knows whether to retain response buffers for zero-copy blobs
+            channel.attr(Message.QUERY_OPTIONS_ATTRIBUTE_KEY).set(queryOptions);
 
             ChannelPipeline pipeline = channel.pipeline();
 
@@ -1461,7 +1549,9 @@ class Connection {
 
             if (compressor != null) {
                 pipeline.addLast("frameDecompressor", new Frame.Decompressor(compressor));
-                pipeline.addLast("frameCompressor", new Frame.Compressor(compressor));
+                Metrics metrics = connection.factory.manager.metrics;
+                pipeline.addLast("frameCompressor", new Frame.Compressor(compressor, protocolOptions,
+                        metrics == null ? null : metrics.getCompressionMetrics()));
             }
 
             pipeline.addLast("messageDecoder", messageDecoder);
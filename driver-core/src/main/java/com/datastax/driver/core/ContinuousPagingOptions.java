@@ -36,12 +36,15 @@ public class ContinuousPagingOptions {
     private final PageUnit pageUnit;
     private final int maxPages;
     private final int maxPagesPerSecond;
+    private final long maxEnqueuedBytes;
 
-    private ContinuousPagingOptions(int pageSize, PageUnit pageUnit, int maxPages, int maxPagesPerSecond) {
+    private ContinuousPagingOptions(int pageSize, PageUnit pageUnit, int maxPages, int maxPagesPerSecond,
+                                    long maxEnqueuedBytes) {
         this.pageSize = pageSize;
         this.pageUnit = pageUnit;
         this.maxPages = maxPages;
         this.maxPagesPerSecond = maxPagesPerSecond;
+        this.maxEnqueuedBytes = maxEnqueuedBytes;
     }
 
     /**
@@ -80,9 +83,18 @@ public class ContinuousPagingOptions {
         return maxPagesPerSecond;
     }
 
+    /**
+     * Returns the maximum number of bytes of received pages that can be buffered on the client.
+     *
+     * @see ContinuousPagingOptions.Builder#withMaxEnqueuedBytes(long)
+     */
+    public long getMaxEnqueuedBytes() {
+        return maxEnqueuedBytes;
+    }
+
     @Override
     public String toString() {
-        return String.format("continuous-paging-options=%d %s,%d,%d", pageSize, pageUnit.name(), maxPages, maxPagesPerSecond);
+        return String.format("continuous-paging-options=%d %s,%d,%d,%d", pageSize, pageUnit.name(), maxPages, maxPagesPerSecond, maxEnqueuedBytes);
     }
 
     /**
@@ -93,6 +105,7 @@ public class ContinuousPagingOptions {
         private PageUnit pageUnit = PageUnit.ROWS;
         private int maxPages;
         private int maxPagesPerSecond;
+        private long maxEnqueuedBytes;
 
         /**
          * Sets the size of the page, in the given unit.
@@ -125,11 +138,34 @@ public class ContinuousPagingOptions {
             return this;
         }
 
+        /**
+         * Sets the maximum number of bytes of received pages that can be buffered on the client, waiting to be
+         * consumed.
+         * <p>
+         * The driver always stops reading from the connection when a few pages are waiting to be consumed, which
+         * causes the server to back off; this additional limit also stops it once the buffered pages reach the given
+         * size (note that the actual memory usage can be a bit higher, because the last page is buffered before the
+         * check, and pages that are in flight keep arriving). This is useful when page sizes vary a lot, for example
+         * with large rows and {@link PageUnit#ROWS}.
+         * <p>
+         * If this method is not called, the limit is set to zero to indicate no limit in bytes.
+         *
+         * @param maxEnqueuedBytes the maximum size of the buffered pages, in bytes, or zero for no limit.
+         * @return this builder.
+         * @throws IllegalArgumentException if {@code maxEnqueuedBytes} is negative.
+         */
+        public Builder withMaxEnqueuedBytes(long maxEnqueuedBytes) {
+            if (maxEnqueuedBytes < 0)
+                throw new IllegalArgumentException("maxEnqueuedBytes must be positive or zero, got " + maxEnqueuedBytes);
+            this.maxEnqueuedBytes = maxEnqueuedBytes;
+            return this;
+        }
+
         /**
          * Returns the options specified by this builder.
          */
         public ContinuousPagingOptions build() {
-            return new ContinuousPagingOptions(pageSize, pageUnit, maxPages, maxPagesPerSecond);
+            return new ContinuousPagingOptions(pageSize, pageUnit, maxPages, maxPagesPerSecond, maxEnqueuedBytes);
         }
     }
     
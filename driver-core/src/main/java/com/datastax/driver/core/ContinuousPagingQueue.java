@@ -40,6 +40,8 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     private static final int MAX_ENQUEUED_RESPONSES = 4;
 
     private final Request request;
+    // How many bytes of pages we accumulate before applying backpressure (0 for no limit).
+    private final long maxEnqueuedBytes;
 
     // Coordinates access to shared state. This is acquired from the I/O thread, but in practice there is little
     // contention.
@@ -50,6 +52,10 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     // If the client requested a page while the queue was empty, then it's waiting on that future.
     // Only accessed while holding the lock.
     private SettableFuture<AsyncContinuousPagingResult> pendingResult;
+    // The total size of the pages in the queue, and whether we have disabled auto-read because of the queue's size.
+    // Only accessed while holding the lock.
+    private long queuedBytes;
+    private boolean paused;
 
     private volatile MultiResponseRequestHandler handler;
     // How long the client waits between each page
@@ -67,9 +73,10 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     private volatile Connection connection;
     private volatile ColumnDefinitions columnDefinitions;
 
-    ContinuousPagingQueue(Request request,
+    ContinuousPagingQueue(Request request, ContinuousPagingOptions options,
                           SettableFuture<AsyncContinuousPagingResult> firstResult) {
         this.request = request;
+        this.maxEnqueuedBytes = options.getMaxEnqueuedBytes();
 
         this.lock = new ReentrantLock();
         this.pendingResult = firstResult;
@@ -165,6 +172,7 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
                 // Make sure we don't leave it stuck
                 connection.channel.config().setAutoRead(true);
             }
+            // The pages that were already received remain available to the client, before the error
             enqueueOrCompletePending(exception);
         }
     }
@@ -234,13 +242,21 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
 
     private void enqueue(Object pageOrError) {
         assert lock.isHeldByCurrentThread();
+        if (state == STATE_FAILED && pageOrError instanceof AsyncContinuousPagingResult) {
+            // The query was cancelled while this page was being processed, the client won't consume it
+            logger.debug("Discarding {} because the request was cancelled", asDebugString(pageOrError));
+            return;
+        }
         queue.add(pageOrError);
+        updateQueuedBytes(sizeOf(pageOrError));
         // Backpressure: if the queue grows too large, disable auto-read so that the channel eventually becomes
         // non-writable on the server side (causing it to back off for a while)
-        if (queue.size() == MAX_ENQUEUED_RESPONSES) {
+        if (!paused && isFull()) {
             if (logger.isDebugEnabled()) {
-                logger.debug("Exceeded {} queued response pages, disabling auto-read", queue.size());
+                logger.debug("Exceeded {} queued response pages ({} bytes), disabling auto-read",
+                        queue.size(), queuedBytes);
             }
+            paused = true;
             connection.channel.config().setAutoRead(false);
         }
     }
@@ -248,15 +264,54 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     private Object dequeue() {
         assert lock.isHeldByCurrentThread();
         Object head = queue.poll();
-        if (head != null && queue.size() == MAX_ENQUEUED_RESPONSES - 1) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Back to {} queued response pages, re-enabling auto-read", queue.size());
+        if (head != null) {
+            updateQueuedBytes(-sizeOf(head));
+            if (paused && !isFull()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Back to {} queued response pages ({} bytes), re-enabling auto-read",
+                            queue.size(), queuedBytes);
+                }
+                paused = false;
+                connection.channel.config().setAutoRead(true);
             }
-            connection.channel.config().setAutoRead(true);
         }
         return head;
     }
 
+    // Drops the pages that the client has not consumed yet, because it is not going to consume them anymore.
+    private void clearQueue() {
+        lock.lock();
+        try {
+            queue.clear();
+            updateQueuedBytes(-queuedBytes);
+            if (paused) {
+                // No dequeue will re-enable it anymore, and the connection is shared with other requests
+                paused = false;
+                connection.channel.config().setAutoRead(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFull() {
+        return queue.size() >= MAX_ENQUEUED_RESPONSES
+                || (maxEnqueuedBytes > 0 && queuedBytes >= maxEnqueuedBytes);
+    }
+
+    private void updateQueuedBytes(long delta) {
+        if (delta != 0) {
+            queuedBytes += delta;
+            handler.manager.continuousPagingQueuedBytes.addAndGet(delta);
+        }
+    }
+
+    private static int sizeOf(Object pageOrError) {
+        return (pageOrError instanceof DefaultAsyncContinuousPagingResult)
+                ? ((DefaultAsyncContinuousPagingResult) pageOrError).dataSize()
+                : 0;
+    }
+
     private void complete(SettableFuture<AsyncContinuousPagingResult> future, Object pageOrError) {
         if (pageOrError instanceof AsyncContinuousPagingResult) {
             future.set((AsyncContinuousPagingResult) pageOrError);
@@ -293,7 +348,8 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
         info = info.with(null, // Don't handle query trace, it's unlikely to be used with continuous paging
                 rows.warnings, rows.metadata.pagingState, statement, protocolVersion, codecRegistry);
 
-        return new DefaultAsyncContinuousPagingResult(rows.data, columnDefinitions,
+        // The client has no way to release the rows, so copy them if they were read with zero-copy blobs
+        return new DefaultAsyncContinuousPagingResult(rows.takeData(false), rows.dataSize, columnDefinitions,
                 rows.metadata.continuousPage.seqNo, rows.metadata.continuousPage.last, info,
                 tokenFactory, protocolVersion, this);
     }
@@ -308,6 +364,8 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
                 connection.channel.config().setAutoRead(true);
             }
         }
+        // Even if the query has completed, the pages that were not consumed yet must not count as queued anymore
+        clearQueue();
     }
 
     private void cancelPendingResult() {
@@ -17,6 +17,7 @@ import java.util.List;
 class DefaultAsyncContinuousPagingResult implements AsyncContinuousPagingResult {
 
     private final Iterable<Row> currentPage;
+    private final int dataSize;
     private final ColumnDefinitions columnDefinitions;
     private final int pageNumber;
     private final boolean isLast;
@@ -25,7 +26,7 @@ class DefaultAsyncContinuousPagingResult implements AsyncContinuousPagingResult
 
     private volatile ListenableFuture<AsyncContinuousPagingResult> nextPage;
 
-    DefaultAsyncContinuousPagingResult(Iterable<List<ByteBuffer>> data, final ColumnDefinitions columnDefinitions,
+    DefaultAsyncContinuousPagingResult(Iterable<List<ByteBuffer>> data, int dataSize, final ColumnDefinitions columnDefinitions,
                                        int pageNumber, boolean isLast, ExecutionInfo executionInfo,
                                        final Token.Factory tokenFactory, final ProtocolVersion protocolVersion,
                                        final ContinuousPagingQueue queue) {
@@ -35,6 +36,7 @@ class DefaultAsyncContinuousPagingResult implements AsyncContinuousPagingResult
                 return ArrayBackedRow.fromData(columnDefinitions, tokenFactory, protocolVersion, input);
             }
         });
+        this.dataSize = dataSize;
         this.columnDefinitions = columnDefinitions;
         this.pageNumber = pageNumber;
         this.isLast = isLast;
@@ -95,4 +97,11 @@ class DefaultAsyncContinuousPagingResult implements AsyncContinuousPagingResult
     public ExecutionInfo getExecutionInfo() {
         return executionInfo;
     }
+
+    /**
+     * The size of the encoded rows of this page, in bytes.
+     */
+    int dataSize() {
+        return dataSize;
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+/**
+ * Decides when the requests written to a connection should be flushed to the socket.
+ * <p/>
+ * The driver does not flush each request individually: writes are queued and handed to the connection's
+ * I/O thread, which periodically writes them to their channel. After each such pass, this policy is consulted for
+ * every channel that has unflushed writes, to determine whether it should be flushed now or whether the driver should
+ * wait for more requests to coalesce into the same flush (trading a bit of latency for fewer system calls).
+ * <p/>
+ * Implementations are called on Netty I/O threads, so they must be thread-safe and must never block.
+ * They must also guarantee that a channel eventually gets flushed: returning {@code false} forever would leave
+ * requests stuck in the outbound buffer until they time out.
+ *
+ * @see SocketOptions#setFlushPolicy(FlushPolicy)
+ * @see ImmediateFlushPolicy
+ * @see CoalescingFlushPolicy
+ */
+public interface FlushPolicy {
+
+    /**
+     * Whether a channel should be flushed now.
+     *
+     * @param pendingFrames        the number of frames written to the channel since its last flush. This is always
+     *                             strictly positive.
+     * @param pendingBytes         the number of bytes currently waiting in the channel's outbound buffer, or -1 if
+     *                             that information is not available. This is only an estimate: for example, with
+     *                             SSL, unflushed data is buffered before it reaches the outbound buffer.
+     * @param nanosSinceFirstWrite the time elapsed (in nanoseconds) since the oldest unflushed frame was written to
+     *                             the channel.
+     * @return whether to flush the channel now. If {@code false}, the policy will be consulted again on the next
+     * pass of the I/O thread, which happens approximately every 10 microseconds while there is outstanding work.
+     */
+    boolean shouldFlush(int pendingFrames, long pendingBytes, long nanosSinceFirstWrite);
+}
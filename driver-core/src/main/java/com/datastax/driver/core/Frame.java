@@ -8,6 +8,7 @@ package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.DriverInternalError;
 import com.datastax.driver.core.exceptions.FrameTooLongException;
+import com.google.common.annotations.VisibleForTesting;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -302,11 +303,11 @@ class Frame {
         @Override
         protected void decode(ChannelHandlerContext ctx, Frame frame, List<Object> out) throws Exception {
             if (frame.header.flags.contains(Header.Flag.COMPRESSED)) {
-                // All decompressors allocate a new buffer for the decompressed data, so this is the last time
+                // All decompressors allocate a new (pooled) buffer for the decompressed data, so this is the last time
                 // we have a reference to the compressed body (and therefore a chance to release it).
                 ByteBuf compressedBody = frame.body;
                 try {
-                    out.add(compressor.decompress(frame));
+                    out.add(compressor.decompress(ctx.alloc(), frame));
                 } finally {
                     compressedBody.release();
                 }
@@ -316,13 +317,38 @@ class Frame {
         }
     }
 
+    /**
+     * Compresses outgoing frames.
+     * <p/>
+     * There is one instance per connection, which also tracks the compression ratio of that connection for adaptive
+     * compression (see {@link ProtocolOptions#setAdaptiveCompressionRatio(double)}). This state is only accessed
+     * from the connection's I/O thread.
+     */
     static class Compressor extends MessageToMessageEncoder<Frame> {
 
+        // When adaptive compression has disabled compression, we still compress one eligible frame out of this number,
+        // in order to detect when the workload becomes compressible again.
+        @VisibleForTesting
+        static final int PROBE_INTERVAL = 64;
+
+        // Weight of the latest sample in the moving average of the compression ratio
+        private static final double RATIO_SMOOTHING = 0.25;
+
         private final FrameCompressor compressor;
+        private final ProtocolOptions protocolOptions;
+        private final Metrics.Compression metrics; // null if metrics are disabled
+
+        @VisibleForTesting
+        double averageRatio = -1; // -1 until the first frame is compressed
+        @VisibleForTesting
+        boolean compressing = true;
+        private int skippedSinceProbe;
 
-        Compressor(FrameCompressor compressor) {
+        Compressor(FrameCompressor compressor, ProtocolOptions protocolOptions, Metrics.Compression metrics) {
             assert compressor != null;
             this.compressor = compressor;
+            this.protocolOptions = protocolOptions;
+            this.metrics = metrics;
         }
 
         @Override
@@ -330,16 +356,58 @@ class Frame {
             // Never compress STARTUP messages
             if (frame.header.opcode == Message.Request.Type.STARTUP.opcode) {
                 out.add(frame);
+            } else if (!shouldCompress(frame.body.readableBytes())) {
+                if (metrics != null)
+                    metrics.getUncompressedRequests().inc();
+                out.add(frame);
             } else {
                 frame.header.flags.add(Header.Flag.COMPRESSED);
                 // See comment in decode()
                 ByteBuf uncompressedBody = frame.body;
+                int uncompressedSize = uncompressedBody.readableBytes();
+                long start = System.nanoTime();
                 try {
-                    out.add(compressor.compress(frame));
+                    Frame compressed = compressor.compress(ctx.alloc(), frame);
+                    int compressedSize = compressed.body.readableBytes();
+                    onCompressed(uncompressedSize, compressedSize);
+                    if (metrics != null) {
+                        metrics.getNanos().inc(System.nanoTime() - start);
+                        metrics.getCompressedRequests().inc();
+                        metrics.getBytesIn().inc(uncompressedSize);
+                        metrics.getBytesOut().inc(compressedSize);
+                    }
+                    out.add(compressed);
                 } finally {
                     uncompressedBody.release();
                 }
             }
         }
+
+        @VisibleForTesting
+        boolean shouldCompress(int bodySize) {
+            if (bodySize < protocolOptions.getCompressionThreshold())
+                return false;
+            if (compressing || protocolOptions.getAdaptiveCompressionRatio() <= 0)
+                return true;
+            if (++skippedSinceProbe >= PROBE_INTERVAL) {
+                skippedSinceProbe = 0;
+                return true;
+            }
+            return false;
+        }
+
+        @VisibleForTesting
+        void onCompressed(int uncompressedSize, int compressedSize) {
+            // Ignore empty bodies, they don't tell us anything about the workload
+            if (uncompressedSize == 0)
+                return;
+            double ratio = (double) compressedSize / uncompressedSize;
+            averageRatio = (averageRatio < 0)
+                    ? ratio
+                    : averageRatio + RATIO_SMOOTHING * (ratio - averageRatio);
+
+            double maxRatio = protocolOptions.getAdaptiveCompressionRatio();
+            compressing = maxRatio <= 0 || averageRatio <= maxRatio;
+        }
     }
 }
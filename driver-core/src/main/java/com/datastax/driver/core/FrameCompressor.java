@@ -7,21 +7,43 @@
 package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.DriverInternalError;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import net.jpountz.lz4.LZ4Factory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
+/**
+ * Compresses and decompresses frame bodies.
+ * <p/>
+ * Implementations operate on NIO views of Netty buffers, and write their output to direct buffers obtained from the
+ * channel's allocator (which is pooled by default). This avoids copying frames to and from {@code byte[]} arrays.
+ */
 abstract class FrameCompressor {
 
     private static final Logger logger = LoggerFactory.getLogger(FrameCompressor.class);
 
-    public abstract Frame compress(Frame frame) throws IOException;
-
-    public abstract Frame decompress(Frame frame) throws IOException;
+    public abstract Frame compress(ByteBufAllocator allocator, Frame frame) throws IOException;
+
+    public abstract Frame decompress(ByteBufAllocator allocator, Frame frame) throws IOException;
+
+    /**
+     * Returns a buffer with the same readable bytes as {@code buffer}, that is guaranteed to be direct and to map to
+     * a single NIO buffer. This is {@code buffer} itself if it already meets these conditions, otherwise a copy.
+     * <p/>
+     * The caller must release the result if it is not {@code buffer}.
+     */
+    static ByteBuf asSingleDirectBuffer(ByteBufAllocator allocator, ByteBuf buffer) {
+        if (buffer.isDirect() && buffer.nioBufferCount() == 1)
+            return buffer;
+        ByteBuf copy = allocator.directBuffer(buffer.readableBytes());
+        copy.writeBytes(buffer, buffer.readerIndex(), buffer.readableBytes());
+        return copy;
+    }
 
     public static class SnappyCompressor extends FrameCompressor {
 
@@ -48,24 +70,50 @@ abstract class FrameCompressor {
         }
 
         @Override
-        public Frame compress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-            byte[] output = new byte[Snappy.maxCompressedLength(input.length)];
-
-            int written = Snappy.compress(input, 0, input.length, output, 0);
-            return frame.with(Unpooled.wrappedBuffer(output, 0, written));
+        public Frame compress(ByteBufAllocator allocator, Frame frame) throws IOException {
+            // Snappy's ByteBuffer API only accepts direct buffers
+            ByteBuf input = asSingleDirectBuffer(allocator, frame.body);
+            ByteBuf output = null;
+            try {
+                int maxCompressedLength = Snappy.maxCompressedLength(input.readableBytes());
+                output = allocator.directBuffer(maxCompressedLength);
+                int written = Snappy.compress(
+                        input.nioBuffer(input.readerIndex(), input.readableBytes()),
+                        output.nioBuffer(0, maxCompressedLength));
+                output.writerIndex(written);
+                return frame.with(output);
+            } catch (IOException e) {
+                if (output != null)
+                    output.release();
+                throw e;
+            } finally {
+                if (input != frame.body)
+                    input.release();
+            }
         }
 
         @Override
-        public Frame decompress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            if (!Snappy.isValidCompressedBuffer(input, 0, input.length))
-                throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
-
-            byte[] output = new byte[Snappy.uncompressedLength(input)];
-            int size = Snappy.uncompress(input, 0, input.length, output, 0);
-            return frame.with(Unpooled.wrappedBuffer(output, 0, size));
+        public Frame decompress(ByteBufAllocator allocator, Frame frame) throws IOException {
+            ByteBuf input = asSingleDirectBuffer(allocator, frame.body);
+            ByteBuf output = null;
+            try {
+                ByteBuffer in = input.nioBuffer(input.readerIndex(), input.readableBytes());
+                if (!Snappy.isValidCompressedBuffer(in))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
+
+                int uncompressedLength = Snappy.uncompressedLength(in);
+                output = allocator.directBuffer(uncompressedLength);
+                int size = Snappy.uncompress(in, output.nioBuffer(0, uncompressedLength));
+                output.writerIndex(size);
+                return frame.with(output);
+            } catch (IOException e) {
+                if (output != null)
+                    output.release();
+                throw e;
+            } finally {
+                if (input != frame.body)
+                    input.release();
+            }
         }
     }
 
@@ -73,70 +121,88 @@ abstract class FrameCompressor {
 
         public static final LZ4Compressor instance;
 
+        /**
+         * Uses LZ4's high compression mode: compressing is slower, but the output is smaller, and can be decompressed
+         * by any LZ4 decompressor (so the server sees regular LZ4 frames).
+         */
+        public static final LZ4Compressor highCompressionInstance;
+
         static {
-            LZ4Compressor i;
+            LZ4Compressor i, hc;
             try {
-                i = new LZ4Compressor();
+                i = new LZ4Compressor(false);
+                hc = new LZ4Compressor(true);
             } catch (NoClassDefFoundError e) {
-                i = null;
+                i = hc = null;
                 logger.warn("Cannot find LZ4 class, you should make sure the LZ4 library is in the classpath if you intend to use it. LZ4 compression will not be available for the protocol.");
             } catch (Throwable e) {
-                i = null;
+                i = hc = null;
                 logger.warn("Error loading LZ4 library ({}). LZ4 compression will not be available for the protocol.", e.toString());
             }
             instance = i;
+            highCompressionInstance = hc;
         }
 
         private static final int INTEGER_BYTES = 4;
         private final net.jpountz.lz4.LZ4Compressor compressor;
         private final net.jpountz.lz4.LZ4FastDecompressor decompressor;
 
-        private LZ4Compressor() {
+        private LZ4Compressor(boolean highCompression) {
             final LZ4Factory lz4Factory = LZ4Factory.fastestInstance();
-            logger.info("Using {}", lz4Factory.toString());
-            compressor = lz4Factory.fastCompressor();
+            if (!highCompression)
+                logger.info("Using {}", lz4Factory.toString());
+            compressor = highCompression ? lz4Factory.highCompressor() : lz4Factory.fastCompressor();
             decompressor = lz4Factory.fastDecompressor();
         }
 
         @Override
-        public Frame compress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            int maxCompressedLength = compressor.maxCompressedLength(input.length);
-            byte[] output = new byte[INTEGER_BYTES + maxCompressedLength];
-
-            output[0] = (byte) (input.length >>> 24);
-            output[1] = (byte) (input.length >>> 16);
-            output[2] = (byte) (input.length >>> 8);
-            output[3] = (byte) (input.length);
-
+        public Frame compress(ByteBufAllocator allocator, Frame frame) throws IOException {
+            // LZ4 accepts heap buffers too, but we need a single NIO view of the input
+            ByteBuf input = asSingleDirectBuffer(allocator, frame.body);
+            int uncompressedLength = input.readableBytes();
+            int maxCompressedLength = compressor.maxCompressedLength(uncompressedLength);
+            ByteBuf output = allocator.directBuffer(INTEGER_BYTES + maxCompressedLength);
             try {
-                int written = compressor.compress(input, 0, input.length, output, INTEGER_BYTES, maxCompressedLength);
-                return frame.with(Unpooled.wrappedBuffer(output, 0, INTEGER_BYTES + written));
+                output.writeInt(uncompressedLength);
+
+                ByteBuffer in = input.nioBuffer(input.readerIndex(), uncompressedLength);
+                ByteBuffer out = output.nioBuffer(INTEGER_BYTES, maxCompressedLength);
+                int written = compressor.compress(in, in.position(), uncompressedLength, out, out.position(), maxCompressedLength);
+                output.writerIndex(INTEGER_BYTES + written);
+                return frame.with(output);
             } catch (Exception e) {
+                output.release();
                 throw new IOException(e);
+            } finally {
+                if (input != frame.body)
+                    input.release();
             }
         }
 
         @Override
-        public Frame decompress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            int uncompressedLength = ((input[0] & 0xFF) << 24)
-                    | ((input[1] & 0xFF) << 16)
-                    | ((input[2] & 0xFF) << 8)
-                    | ((input[3] & 0xFF));
-
-            byte[] output = new byte[uncompressedLength];
-
+        public Frame decompress(ByteBufAllocator allocator, Frame frame) throws IOException {
+            ByteBuf input = asSingleDirectBuffer(allocator, frame.body);
+            ByteBuf output = null;
             try {
-                int read = decompressor.decompress(input, INTEGER_BYTES, output, 0, uncompressedLength);
-                if (read != input.length - INTEGER_BYTES)
+                int uncompressedLength = input.getInt(input.readerIndex());
+                int compressedLength = input.readableBytes() - INTEGER_BYTES;
+                output = allocator.directBuffer(uncompressedLength);
+
+                ByteBuffer in = input.nioBuffer(input.readerIndex() + INTEGER_BYTES, compressedLength);
+                ByteBuffer out = output.nioBuffer(0, uncompressedLength);
+                int read = decompressor.decompress(in, in.position(), out, out.position(), uncompressedLength);
+                if (read != compressedLength)
                     throw new IOException("Compressed lengths mismatch");
 
-                return frame.with(Unpooled.wrappedBuffer(output));
+                output.writerIndex(uncompressedLength);
+                return frame.with(output);
             } catch (Exception e) {
-                throw new IOException(e);
+                if (output != null)
+                    output.release();
+                throw (e instanceof IOException) ? (IOException) e : new IOException(e);
+            } finally {
+                if (input != frame.body)
+                    input.release();
             }
         }
     }
@@ -348,6 +348,24 @@ public class Host {
         return state == State.UP;
     }
 
+    /**
+     * Returns the number of requests currently executing on this host, across all the sessions of the cluster.
+     * <p/>
+     * This is read from the connection pools of each session, and is cheap enough to be called when computing query
+     * plans (see {@link com.datastax.driver.core.policies.TokenAwarePolicy#TokenAwarePolicy(com.datastax.driver.core.policies.LoadBalancingPolicy, PerHostPercentileTracker)}).
+     *
+     * @return the number of in-flight requests, or 0 if no session is connected to this host.
+     */
+    public int getInFlightQueries() {
+        int total = 0;
+        for (SessionManager session : manager.sessions) {
+            HostConnectionPool pool = session.pools.get(this);
+            if (pool != null)
+                total += pool.totalInFlight();
+        }
+        return total;
+    }
+
     /**
      * Returns a description of the host's state, as seen by the driver.
      * <p/>
@@ -6,6 +6,7 @@
  */
 package com.datastax.driver.core;
 
+import com.codahale.metrics.Timer;
 import com.datastax.driver.core.exceptions.AuthenticationException;
 import com.datastax.driver.core.exceptions.BusyPoolException;
 import com.datastax.driver.core.exceptions.ConnectionException;
@@ -22,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.datastax.driver.core.Connection.State.*;
@@ -32,25 +34,43 @@ class HostConnectionPool implements Connection.Owner {
 
     private static final int MAX_SIMULTANEOUS_CREATION = 1;
 
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
     final Host host;
     volatile HostDistance hostDistance;
     protected final SessionManager manager;
 
     final List<Connection> connections;
     private final AtomicInteger open;
+    private final PoolingOptions.ConnectionSelection connectionSelection;
+    // Limits the rate of retries and speculative executions to this host, null if they are not throttled
+    final RequestThrottler extraExecutionsThrottler;
     /**
      * The total number of in-flight requests on all connections of this pool.
+     * Only maintained with {@link PoolingOptions.ConnectionSelection#LEAST_BUSY}, see {@link #totalInFlight()}.
      */
-    final AtomicInteger totalInFlight = new AtomicInteger();
+    private final AtomicInteger totalInFlight = new AtomicInteger();
     /**
-     * The maximum value of {@link #totalInFlight} since the last call to {@link #cleanupIdleConnections(long)}
+     * The maximum value of {@link #totalInFlight} since the last call to {@link #cleanupIdleConnections(long)}.
+     * Only maintained with {@link PoolingOptions.ConnectionSelection#LEAST_BUSY}.
      */
     private final AtomicInteger maxTotalInFlight = new AtomicInteger();
     @VisibleForTesting
     final Set<Connection> trash = new CopyOnWriteArraySet<Connection>();
 
+    // Borrow requests waiting for a connection, in FIFO order. The queue is bounded by pendingBorrowCount, which is
+    // decremented by whichever thread manages to remove an element (dequeue or expirePendingBorrows).
     private final Queue<PendingBorrow> pendingBorrows = new ConcurrentLinkedQueue<PendingBorrow>();
     private final AtomicInteger pendingBorrowCount = new AtomicInteger();
+    // The deadline (in System.nanoTime() units) of the next scheduled expiration sweep, or Long.MAX_VALUE if none.
+    private final AtomicLong nextExpiration = new AtomicLong(Long.MAX_VALUE);
+    private final Runnable expirationTask;
+    private final Timer waitTimer; // null if metrics are disabled
 
     private final Runnable newConnectionTask;
 
@@ -83,12 +103,26 @@ class HostConnectionPool implements Connection.Owner {
             }
         };
 
+        this.expirationTask = new Runnable() {
+            @Override
+            public void run() {
+                expirePendingBorrows();
+            }
+        };
+
         this.connections = new CopyOnWriteArrayList<Connection>();
         this.open = new AtomicInteger();
 
         this.minAllowedStreams = options().getMaxRequestsPerConnection(hostDistance) * 3 / 4;
+        this.connectionSelection = options().getConnectionSelection();
+        this.extraExecutionsThrottler = options().getExtraExecutionsPerSecond() > 0
+                ? new RequestThrottler(options().getExtraExecutionsPerSecond(), options().getExtraExecutionsBurst())
+                : null;
 
         this.timeoutsExecutor = manager.getCluster().manager.connectionFactory.eventLoopGroup.next();
+
+        Metrics metrics = manager.getCluster().manager.metrics;
+        this.waitTimer = metrics == null ? null : metrics.getPoolWaitTimer();
     }
 
     /**
@@ -207,15 +241,9 @@ class HostConnectionPool implements Connection.Owner {
             }
         }
 
-        int minInFlight = Integer.MAX_VALUE;
-        Connection leastBusy = null;
-        for (Connection connection : connections) {
-            int inFlight = connection.inFlight.get();
-            if (inFlight < minInFlight) {
-                minInFlight = inFlight;
-                leastBusy = connection;
-            }
-        }
+        Connection leastBusy = (connectionSelection == PoolingOptions.ConnectionSelection.POWER_OF_TWO_CHOICES)
+                ? twoRandomChoices()
+                : leastBusy();
 
         if (leastBusy == null) {
             // We could have raced with a shutdown since the last check
@@ -225,26 +253,16 @@ class HostConnectionPool implements Connection.Owner {
             // the previous check to connections and now. But in that case, the line above will have trigger the creation of
             // a new connection, so just wait that connection and move on
             return enqueue(timeout, unit, maxQueueSize);
-        } else {
-            while (true) {
-                int inFlight = leastBusy.inFlight.get();
-
-                if (inFlight >= Math.min(leastBusy.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance))) {
-                    return enqueue(timeout, unit, maxQueueSize);
-                }
-
-                if (leastBusy.inFlight.compareAndSet(inFlight, inFlight + 1))
-                    break;
-            }
+        } else if (!tryAcquire(leastBusy)) {
+            if (connectionSelection == PoolingOptions.ConnectionSelection.LEAST_BUSY)
+                return enqueue(timeout, unit, maxQueueSize);
+            // Both random choices were full, but other connections might not be
+            leastBusy = leastBusy();
+            if (leastBusy == null || !tryAcquire(leastBusy))
+                return enqueue(timeout, unit, maxQueueSize);
         }
 
-        int totalInFlightCount = totalInFlight.incrementAndGet();
-        // update max atomically:
-        while (true) {
-            int oldMax = maxTotalInFlight.get();
-            if (totalInFlightCount <= oldMax || maxTotalInFlight.compareAndSet(oldMax, totalInFlightCount))
-                break;
-        }
+        int totalInFlightCount = onAcquired(leastBusy);
 
         int connectionCount = open.get() + scheduledForCreation.get();
         if (connectionCount < options().getCoreConnectionsPerHost(hostDistance)) {
@@ -260,6 +278,110 @@ class HostConnectionPool implements Connection.Owner {
         return leastBusy.setKeyspaceAsync(manager.poolsState.keyspace);
     }
 
+    private Connection leastBusy() {
+        int minInFlight = Integer.MAX_VALUE;
+        Connection leastBusy = null;
+        for (Connection connection : connections) {
+            int inFlight = connection.inFlight.get();
+            if (inFlight < minInFlight) {
+                minInFlight = inFlight;
+                leastBusy = connection;
+            }
+        }
+        return leastBusy;
+    }
+
+    private Connection twoRandomChoices() {
+        int size = connections.size();
+        if (size <= 2)
+            return leastBusy();
+        Random random = RANDOM.get();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i)
+            j += 1;
+        Connection first, second;
+        try {
+            first = connections.get(i);
+            second = connections.get(j);
+        } catch (IndexOutOfBoundsException e) {
+            // A connection was removed concurrently
+            return leastBusy();
+        }
+        return (second.inFlight.get() < first.inFlight.get()) ? second : first;
+    }
+
+    // Reserves a request on the connection if it's under its maximum number of in-flight requests.
+    private boolean tryAcquire(Connection connection) {
+        while (true) {
+            int inFlight = connection.inFlight.get();
+            if (inFlight >= Math.min(connection.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance)))
+                return false;
+            if (connection.inFlight.compareAndSet(inFlight, inFlight + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Updates the pool's in-flight accounting after a request was reserved on a connection.
+     *
+     * @return the total number of in-flight requests on the pool, or an estimate of it, depending on the connection
+     * selection strategy.
+     */
+    private int onAcquired(Connection connection) {
+        if (connectionSelection == PoolingOptions.ConnectionSelection.LEAST_BUSY) {
+            int totalInFlightCount = totalInFlight.incrementAndGet();
+            // update max atomically:
+            while (true) {
+                int oldMax = maxTotalInFlight.get();
+                if (totalInFlightCount <= oldMax || maxTotalInFlight.compareAndSet(oldMax, totalInFlightCount))
+                    break;
+            }
+            return totalInFlightCount;
+        } else {
+            // Track the maximum on the connection (racy but good enough for sizing heuristics), and estimate the total
+            // from the load of the selected connection, since selection balances the load between connections.
+            int inFlight = connection.inFlight.get();
+            if (inFlight > connection.maxInFlight)
+                connection.maxInFlight = inFlight;
+            return inFlight * connections.size();
+        }
+    }
+
+    private void onReleased() {
+        if (connectionSelection == PoolingOptions.ConnectionSelection.LEAST_BUSY)
+            totalInFlight.decrementAndGet();
+    }
+
+    /**
+     * The total number of in-flight requests on all connections of this pool.
+     */
+    int totalInFlight() {
+        if (connectionSelection == PoolingOptions.ConnectionSelection.LEAST_BUSY)
+            return totalInFlight.get();
+        int total = 0;
+        for (Connection connection : connections)
+            total += connection.inFlight.get();
+        for (Connection connection : trash)
+            total += connection.inFlight.get();
+        return total;
+    }
+
+    // Returns the maximum number of in-flight requests since the last call, and resets it to the current value.
+    private int getAndResetMaxTotalInFlight() {
+        if (connectionSelection == PoolingOptions.ConnectionSelection.LEAST_BUSY)
+            return maxTotalInFlight.getAndSet(totalInFlight.get());
+        // The sum of the maximums of each connection is an upper bound of the maximum total.
+        int max = 0;
+        for (Connection connection : connections) {
+            max += Math.max(connection.maxInFlight, connection.inFlight.get());
+            connection.maxInFlight = connection.inFlight.get();
+        }
+        for (Connection connection : trash)
+            max += connection.inFlight.get();
+        return max;
+    }
+
     private ListenableFuture<Connection> enqueue(long timeout, TimeUnit unit, int maxQueueSize) {
         if (timeout == 0 || maxQueueSize == 0) {
             return Futures.immediateFailedFuture(new BusyPoolException(host.getSocketAddress(), 0));
@@ -275,8 +397,9 @@ class HostConnectionPool implements Connection.Owner {
             }
         }
 
-        PendingBorrow pendingBorrow = new PendingBorrow(timeout, unit, timeoutsExecutor);
+        PendingBorrow pendingBorrow = new PendingBorrow(timeout, unit);
         pendingBorrows.add(pendingBorrow);
+        scheduleExpiration(pendingBorrow.deadline);
 
         // If we raced with shutdown, make sure the future will be completed. This has no effect if it was properly
         // handled in closeAsync.
@@ -289,7 +412,7 @@ class HostConnectionPool implements Connection.Owner {
 
     void returnConnection(Connection connection) {
         connection.inFlight.decrementAndGet();
-        totalInFlight.decrementAndGet();
+        onReleased();
 
         if (isClosed()) {
             close(connection);
@@ -312,65 +435,124 @@ class HostConnectionPool implements Connection.Owner {
     }
 
     // When a connection gets returned to the pool, check if there are pending borrows that can be completed with it.
+    // Waiters are handed off in batches: the connection's remaining capacity is reserved with a single CAS, then as
+    // many waiters as it allows are polled from the queue and completed together.
     private void dequeue(final Connection connection) {
         while (!pendingBorrows.isEmpty()) {
 
             // We can only reuse the connection if it's under its maximum number of inFlight requests.
             // Do this atomically, as we could be competing with other borrowConnection or dequeue calls.
+            int reserved;
             while (true) {
                 int inFlight = connection.inFlight.get();
-                if (inFlight >= Math.min(connection.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance))) {
+                int available = Math.min(connection.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance)) - inFlight;
+                if (available <= 0) {
                     // Connection is full again, stop dequeuing
                     return;
                 }
-                if (connection.inFlight.compareAndSet(inFlight, inFlight + 1)) {
-                    // We acquired the right to reuse the connection for one request, proceed
+                reserved = Math.min(available, Math.max(pendingBorrowCount.get(), 1));
+                if (connection.inFlight.compareAndSet(inFlight, inFlight + reserved)) {
+                    // We acquired the right to reuse the connection for that many requests, proceed
                     break;
                 }
             }
 
-            final PendingBorrow pendingBorrow = pendingBorrows.poll();
-            if (pendingBorrow == null) {
+            final List<PendingBorrow> batch = new ArrayList<PendingBorrow>(reserved);
+            while (batch.size() < reserved) {
+                PendingBorrow pendingBorrow = pendingBorrows.poll();
+                if (pendingBorrow == null)
+                    break;
+                pendingBorrowCount.decrementAndGet();
+                // Skip waiters that have been cancelled or failed in the meantime
+                if (!pendingBorrow.future.isDone())
+                    batch.add(pendingBorrow);
+            }
+            if (batch.size() < reserved) {
                 // Another thread has emptied the queue since our last check, restore the count
-                connection.inFlight.decrementAndGet();
+                connection.inFlight.addAndGet(batch.size() - reserved);
+            }
+            if (batch.isEmpty())
+                continue;
+
+            // Ensure that the keyspace set on the connection is the one set on the pool state, in the general case it will be.
+            ListenableFuture<Connection> setKeyspaceFuture = connection.setKeyspaceAsync(manager.poolsState.keyspace);
+            // Slight optimization, if the keyspace was already correct the future will be complete, so simply complete it here.
+            if (setKeyspaceFuture.isDone()) {
+                try {
+                    handOff(batch, Uninterruptibles.getUninterruptibly(setKeyspaceFuture), connection);
+                } catch (ExecutionException e) {
+                    failHandOff(batch, e.getCause(), connection);
+                }
             } else {
-                pendingBorrowCount.decrementAndGet();
-                // Ensure that the keyspace set on the connection is the one set on the pool state, in the general case it will be.
-                ListenableFuture<Connection> setKeyspaceFuture = connection.setKeyspaceAsync(manager.poolsState.keyspace);
-                // Slight optimization, if the keyspace was already correct the future will be complete, so simply complete it here.
-                if (setKeyspaceFuture.isDone()) {
-                    try {
-                        if (pendingBorrow.set(Uninterruptibles.getUninterruptibly(setKeyspaceFuture))) {
-                            totalInFlight.incrementAndGet();
-                        } else {
-                            connection.inFlight.decrementAndGet();
-                        }
-                    } catch (ExecutionException e) {
-                        pendingBorrow.setException(e.getCause());
-                        connection.inFlight.decrementAndGet();
+                // Otherwise the keyspace did need to be set, tie the pending borrows to the set keyspace completion.
+                Futures.addCallback(setKeyspaceFuture, new FutureCallback<Connection>() {
+
+                    @Override
+                    public void onSuccess(Connection c) {
+                        handOff(batch, c, connection);
                     }
-                } else {
-                    // Otherwise the keyspace did need to be set, tie the pendingBorrow future to the set keyspace completion.
-                    Futures.addCallback(setKeyspaceFuture, new FutureCallback<Connection>() {
-
-                        @Override
-                        public void onSuccess(Connection c) {
-                            if (pendingBorrow.set(c)) {
-                                totalInFlight.incrementAndGet();
-                            } else {
-                                connection.inFlight.decrementAndGet();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Throwable t) {
-                            pendingBorrow.setException(t);
-                            connection.inFlight.decrementAndGet();
-                        }
-                    });
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        failHandOff(batch, t, connection);
+                    }
+                });
+            }
+        }
+    }
+
+    private void handOff(List<PendingBorrow> batch, Connection c, Connection connection) {
+        for (PendingBorrow pendingBorrow : batch) {
+            if (pendingBorrow.set(c)) {
+                onAcquired(connection);
+            } else {
+                connection.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void failHandOff(List<PendingBorrow> batch, Throwable t, Connection connection) {
+        for (PendingBorrow pendingBorrow : batch)
+            pendingBorrow.setException(t);
+        connection.inFlight.addAndGet(-batch.size());
+    }
+
+    // Ensures that an expiration sweep will run no later than the given deadline.
+    private void scheduleExpiration(long deadline) {
+        while (true) {
+            long next = nextExpiration.get();
+            if (next <= deadline)
+                return;
+            if (nextExpiration.compareAndSet(next, deadline)) {
+                timeoutsExecutor.schedule(expirationTask, Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+    }
+
+    // Fails the pending borrows that have reached their deadline, and removes those that were completed otherwise
+    // (cancelled by the client, or failed when the pool was closed). A single task handles all waiters, instead of
+    // scheduling one timeout task per enqueued borrow.
+    private void expirePendingBorrows() {
+        // Reset first, so that borrows enqueued concurrently schedule a new sweep if needed
+        nextExpiration.set(Long.MAX_VALUE);
+
+        long now = System.nanoTime();
+        long earliest = Long.MAX_VALUE;
+        for (PendingBorrow pendingBorrow : pendingBorrows) {
+            if (pendingBorrow.future.isDone() || pendingBorrow.deadline - now <= 0) {
+                // If we lose the race with dequeue, the borrow is being completed, leave it alone
+                if (pendingBorrows.remove(pendingBorrow)) {
+                    pendingBorrowCount.decrementAndGet();
+                    pendingBorrow.setException(
+                            new BusyPoolException(host.getSocketAddress(), pendingBorrow.timeout, pendingBorrow.unit));
                 }
+            } else if (pendingBorrow.deadline < earliest) {
+                earliest = pendingBorrow.deadline;
             }
         }
+        if (earliest != Long.MAX_VALUE)
+            scheduleExpiration(earliest);
     }
 
     // Trash the connection and create a new one, but we don't call trashConnection
@@ -537,7 +719,7 @@ class HostConnectionPool implements Connection.Owner {
      * If we have more active connections than needed, trash some of them
      */
     private void shrinkIfBelowCapacity() {
-        int currentLoad = maxTotalInFlight.getAndSet(totalInFlight.get());
+        int currentLoad = getAndResetMaxTotalInFlight();
 
         int maxRequestsPerConnection = options().getMaxRequestsPerConnection(hostDistance);
         int needed = currentLoad / maxRequestsPerConnection + 1;
@@ -671,29 +853,28 @@ class HostConnectionPool implements Connection.Owner {
     }
 
     private class PendingBorrow {
-        final SettableFuture<Connection> future;
-        final Future<?> timeoutTask;
-
-        PendingBorrow(final long timeout, final TimeUnit unit, EventExecutor timeoutsExecutor) {
-            this.future = SettableFuture.create();
-            this.timeoutTask = timeoutsExecutor.schedule(new Runnable() {
-                @Override
-                public void run() {
-                    future.setException(
-                            new BusyPoolException(host.getSocketAddress(), timeout, unit));
-                }
-            }, timeout, unit);
+        final SettableFuture<Connection> future = SettableFuture.create();
+        final long timeout;
+        final TimeUnit unit;
+        final long enqueued;
+        final long deadline;
+
+        PendingBorrow(long timeout, TimeUnit unit) {
+            this.timeout = timeout;
+            this.unit = unit;
+            this.enqueued = System.nanoTime();
+            this.deadline = enqueued + unit.toNanos(timeout);
         }
 
         boolean set(Connection connection) {
             boolean succeeded = this.future.set(connection);
-            this.timeoutTask.cancel(false);
+            if (succeeded && waitTimer != null)
+                waitTimer.update(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
             return succeeded;
         }
 
         void setException(Throwable exception) {
             this.future.setException(exception);
-            this.timeoutTask.cancel(false);
         }
     }
 }
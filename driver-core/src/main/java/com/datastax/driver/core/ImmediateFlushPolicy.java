@@ -0,0 +1,32 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+/**
+ * A {@link FlushPolicy} that flushes every channel as soon as possible.
+ * <p/>
+ * Requests that were queued concurrently still get coalesced (because they are written during the same pass of the
+ * I/O thread), but the driver never artificially delays a flush to wait for more requests.
+ * <p/>
+ * This is the default policy.
+ */
+public class ImmediateFlushPolicy implements FlushPolicy {
+
+    /**
+     * The single instance (this class is stateless).
+     */
+    public static final ImmediateFlushPolicy INSTANCE = new ImmediateFlushPolicy();
+
+    private ImmediateFlushPolicy() {
+        // do nothing
+    }
+
+    @Override
+    public boolean shouldFlush(int pendingFrames, long pendingBytes, long nanosSinceFirstWrite) {
+        return true;
+    }
+}
@@ -29,6 +29,8 @@ abstract class Message {
 
     static AttributeKey<CodecRegistry> CODEC_REGISTRY_ATTRIBUTE_KEY = AttributeKey.valueOf("com.datastax.driver.core.CodecRegistry");
 
+    static AttributeKey<QueryOptions> QUERY_OPTIONS_ATTRIBUTE_KEY = AttributeKey.valueOf("com.datastax.driver.core.QueryOptions");
+
     interface Coder<R extends Request> {
         void encode(R request, ByteBuf dest, ProtocolVersion version);
 
@@ -281,7 +283,11 @@ abstract class Message {
             try {
                 CodecRegistry codecRegistry = ctx.channel().attr(CODEC_REGISTRY_ATTRIBUTE_KEY).get();
                 assert codecRegistry != null;
-                Response response = Response.Type.fromOpcode(frame.header.opcode).decoder.decode(frame.body, frame.header.version, codecRegistry);
+                QueryOptions queryOptions = ctx.channel().attr(QUERY_OPTIONS_ATTRIBUTE_KEY).get();
+                Response.Type type = Response.Type.fromOpcode(frame.header.opcode);
+                Response response = type == Response.Type.RESULT && queryOptions != null && queryOptions.isZeroCopyBlobs()
+                        ? Responses.Result.decodeRetainingBlobs(frame.body, frame.header.version, codecRegistry)
+                        : type.decoder.decode(frame.body, frame.header.version, codecRegistry);
                 response
                         .setTracingId(tracingId)
                         .setWarnings(warnings)
@@ -8,7 +8,9 @@ package com.datastax.driver.core;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,6 +19,11 @@ import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -55,13 +62,7 @@ public class Metadata {
         try {
             if (tokenMap == null)
                 return;
-            this.tokenMap = TokenMap.build(
-                    tokenMap.factory,
-                    tokenMap.primaryToTokens,
-                    keyspaces.values(),
-                    tokenMap.ring,
-                    tokenMap.tokenRanges,
-                    tokenMap.tokenToPrimary);
+            this.tokenMap = TokenMap.rebuild(tokenMap, tokenMap.factory, tokenMap.primaryToTokens, keyspaces.values(), cluster.blockingExecutor);
         } finally {
             lock.unlock();
         }
@@ -71,7 +72,7 @@ public class Metadata {
     void rebuildTokenMap(Token.Factory factory, Map<Host, Set<Token>> allTokens) {
         lock.lock();
         try {
-            this.tokenMap = TokenMap.build(factory, allTokens, keyspaces.values());
+            this.tokenMap = TokenMap.rebuild(tokenMap, factory, allTokens, keyspaces.values(), cluster.blockingExecutor);
         } finally {
             lock.unlock();
         }
@@ -335,7 +336,7 @@ public class Metadata {
         if (current == null) {
             return Collections.emptySet();
         } else {
-            Set<Host> hosts = current.getReplicas(keyspace, current.factory.hash(partitionKey));
+            Set<Host> hosts = current.getReplicas(keyspace, partitionKey);
             return hosts == null ? Collections.<Host>emptySet() : hosts;
         }
     }
@@ -386,6 +387,25 @@ public class Metadata {
         }
     }
 
+    /**
+     * Returns the token of the partition targeted by a bound statement.
+     * <p/>
+     * This is the token set with {@link BoundStatement#setRoutingToken(Token)} if any, otherwise the token of its
+     * {@link BoundStatement#getRoutingKey(ProtocolVersion, CodecRegistry) routing key}. The latter is cached on the
+     * statement until its routing key or one of the values that compose it changes, so that executing the same
+     * statement several times only hashes its routing key once.
+     *
+     * @param statement the bound statement.
+     * @return the token, or {@code null} if the statement has no routing key or if token metadata is not available.
+     */
+    public Token getRoutingToken(BoundStatement statement) {
+        Token token = statement.getRoutingToken();
+        if (token != null)
+            return token;
+        TokenMap current = tokenMap;
+        return current == null ? null : statement.getRoutingToken(current.factory);
+    }
+
     /**
      * The Cassandra name for the cluster connect to.
      *
@@ -446,8 +466,9 @@ public class Metadata {
 
     KeyspaceMetadata removeKeyspace(String keyspace) {
         KeyspaceMetadata removed = keyspaces.remove(keyspace);
-        if (tokenMap != null)
-            tokenMap.tokenToHostsByKeyspace.remove(keyspace);
+        TokenMap current = tokenMap;
+        if (current != null)
+            current.removeKeyspace(keyspace);
         return removed;
     }
 
@@ -681,6 +702,17 @@ public class Metadata {
         private final List<Token> ring;
         private final Set<TokenRange> tokenRanges;
         private final Map<Token, Host> tokenToPrimary;
+        // With Murmur3Partitioner, the ring as a sorted array of primitive tokens, and for each keyspace, the replicas
+        // of each token of the ring (at the same index). This allows token-aware routing to find the replicas of a
+        // partition key without allocating tokens or looking up maps. Null with other partitioners.
+        private final long[] murmur3Ring;
+        private final Map<String, Set<Host>[]> murmur3ReplicasByKeyspace;
+        // The replicas and ranges computed for each replication strategy, and the location of each host when they were
+        // computed. When the map is rebuilt for the same ring and host locations (for example after a schema change),
+        // the results of the strategies that were already known are reused, and only new strategies are computed.
+        private final Map<ReplicationStrategy, Map<Token, Set<Host>>> tokenToHostsByStrategy;
+        private final Map<ReplicationStrategy, Map<Host, Set<TokenRange>>> hostsToRangesByStrategy;
+        private final Map<Host, String> hostLocations;
 
         private TokenMap(Token.Factory factory,
                          List<Token> ring,
@@ -688,7 +720,10 @@ public class Metadata {
                          Map<Token, Host> tokenToPrimary,
                          Map<Host, Set<Token>> primaryToTokens,
                          Map<String, Map<Token, Set<Host>>> tokenToHostsByKeyspace,
-                         Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace) {
+                         Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace,
+                         Map<ReplicationStrategy, Map<Token, Set<Host>>> tokenToHostsByStrategy,
+                         Map<ReplicationStrategy, Map<Host, Set<TokenRange>>> hostsToRangesByStrategy,
+                         TokenMap previous) {
             this.factory = factory;
             this.ring = ring;
             this.tokenRanges = tokenRanges;
@@ -696,13 +731,28 @@ public class Metadata {
             this.primaryToTokens = primaryToTokens;
             this.tokenToHostsByKeyspace = tokenToHostsByKeyspace;
             this.hostsToRangesByKeyspace = hostsToRangesByKeyspace;
+            this.tokenToHostsByStrategy = tokenToHostsByStrategy;
+            this.hostsToRangesByStrategy = hostsToRangesByStrategy;
+            this.hostLocations = locations(primaryToTokens.keySet());
+            if (factory == Token.M3PToken.FACTORY) {
+                if (previous != null && previous.ring == ring) {
+                    this.murmur3Ring = previous.murmur3Ring;
+                    this.murmur3ReplicasByKeyspace = makeMurmur3Replicas(ring, tokenToHostsByKeyspace, previous);
+                } else {
+                    this.murmur3Ring = makeMurmur3Ring(ring);
+                    this.murmur3ReplicasByKeyspace = makeMurmur3Replicas(ring, tokenToHostsByKeyspace, null);
+                }
+            } else {
+                this.murmur3Ring = null;
+                this.murmur3ReplicasByKeyspace = null;
+            }
             for (Map.Entry<Host, Set<Token>> entry : primaryToTokens.entrySet()) {
                 Host host = entry.getKey();
                 host.setTokens(ImmutableSet.copyOf(entry.getValue()));
             }
         }
 
-        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces) {
+        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, Executor executor) {
             Map<Token, Host> tokenToPrimary = new HashMap<Token, Host>();
             Set<Token> allSorted = new TreeSet<Token>();
             for (Map.Entry<Host, ? extends Collection<Token>> entry : allTokens.entrySet()) {
@@ -718,42 +768,148 @@ public class Metadata {
             }
             List<Token> ring = new ArrayList<Token>(allSorted);
             Set<TokenRange> tokenRanges = makeTokenRanges(ring, factory);
-            return build(factory, allTokens, keyspaces, ring, tokenRanges, tokenToPrimary);
+            return build(factory, allTokens, keyspaces, ring, tokenRanges, tokenToPrimary, null, executor);
         }
 
-        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary) {
-            Set<Host> hosts = allTokens.keySet();
-            Map<String, Map<Token, Set<Host>>> tokenToHosts = new HashMap<String, Map<Token, Set<Host>>>();
+        /**
+         * Builds a token map for the given tokens and keyspaces. If the ring and the location of the hosts did not
+         * change since the previous map, its ring and the replicas of the known replication strategies are reused.
+         */
+        private static TokenMap rebuild(TokenMap previous, Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, Executor executor) {
+            if (previous != null
+                    && previous.factory == factory
+                    && previous.primaryToTokens.equals(allTokens)
+                    && previous.hostLocations.equals(locations(allTokens.keySet())))
+                return build(factory, previous.primaryToTokens, keyspaces, previous.ring, previous.tokenRanges, previous.tokenToPrimary, previous, executor);
+            return build(factory, allTokens, keyspaces, executor);
+        }
+
+        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary, TokenMap previous, Executor executor) {
             Map<ReplicationStrategy, Map<Token, Set<Host>>> replStrategyToHosts = new HashMap<ReplicationStrategy, Map<Token, Set<Host>>>();
-            Map<String, Map<Host, Set<TokenRange>>> hostsToRanges = new HashMap<String, Map<Host, Set<TokenRange>>>();
+            Map<ReplicationStrategy, Map<Host, Set<TokenRange>>> replStrategyToRanges = new HashMap<ReplicationStrategy, Map<Host, Set<TokenRange>>>();
+            // The strategies that must be computed, with the name of a keyspace that uses them
+            Map<ReplicationStrategy, String> newStrategies = new LinkedHashMap<ReplicationStrategy, String>();
             for (KeyspaceMetadata keyspace : keyspaces) {
                 ReplicationStrategy strategy = keyspace.replicationStrategy();
-                Map<Token, Set<Host>> ksTokens = replStrategyToHosts.get(strategy);
-                if (ksTokens == null) {
-                    ksTokens = (strategy == null)
-                            ? makeNonReplicatedMap(tokenToPrimary)
-                            : strategy.computeTokenToReplicaMap(keyspace.getName(), tokenToPrimary, ring);
+                if (replStrategyToHosts.containsKey(strategy) || newStrategies.containsKey(strategy))
+                    continue;
+                Map<Token, Set<Host>> ksTokens = (previous == null) ? null : previous.tokenToHostsByStrategy.get(strategy);
+                Map<Host, Set<TokenRange>> ksRanges = (previous == null) ? null : previous.hostsToRangesByStrategy.get(strategy);
+                if (ksTokens != null && ksRanges != null) {
                     replStrategyToHosts.put(strategy, ksTokens);
+                    replStrategyToRanges.put(strategy, ksRanges);
+                } else {
+                    newStrategies.put(strategy, keyspace.getName());
                 }
+            }
+            computeStrategies(newStrategies, allTokens.keySet(), ring, tokenRanges, tokenToPrimary,
+                    replStrategyToHosts, replStrategyToRanges, executor);
+
+            Map<String, Map<Token, Set<Host>>> tokenToHosts = new HashMap<String, Map<Token, Set<Host>>>();
+            Map<String, Map<Host, Set<TokenRange>>> hostsToRanges = new HashMap<String, Map<Host, Set<TokenRange>>>();
+            for (KeyspaceMetadata keyspace : keyspaces) {
+                ReplicationStrategy strategy = keyspace.replicationStrategy();
+                tokenToHosts.put(keyspace.getName(), replStrategyToHosts.get(strategy));
+                hostsToRanges.put(keyspace.getName(), replStrategyToRanges.get(strategy));
+            }
+            return new TokenMap(factory, ring, tokenRanges, tokenToPrimary, allTokens, tokenToHosts, hostsToRanges,
+                    replStrategyToHosts, replStrategyToRanges, previous);
+        }
 
-                tokenToHosts.put(keyspace.getName(), ksTokens);
+        /**
+         * Computes the replicas and ranges of each given strategy.
+         * <p/>
+         * Distinct strategies are independent, so if there are several of them they are computed in parallel: helper
+         * tasks are submitted to the executor (at most one per available processor), and the calling thread processes
+         * strategies as well. It only waits for the strategies that helpers have already started, so the build
+         * completes even if the executor is busy or shut down.
+         */
+        @SuppressWarnings("unchecked")
+        private static void computeStrategies(Map<ReplicationStrategy, String> strategies,
+                                              final Set<Host> hosts,
+                                              final List<Token> ring,
+                                              final Set<TokenRange> tokenRanges,
+                                              final Map<Token, Host> tokenToPrimary,
+                                              Map<ReplicationStrategy, Map<Token, Set<Host>>> replStrategyToHosts,
+                                              Map<ReplicationStrategy, Map<Host, Set<TokenRange>>> replStrategyToRanges,
+                                              Executor executor) {
+            final int count = strategies.size();
+            if (count == 0)
+                return;
 
-                Map<Host, Set<TokenRange>> ksRanges;
-                if (ring.size() == 1) {
-                    // We forced the single range to ]minToken,minToken], make sure to use that instead of relying on the host's token
-                    ImmutableMap.Builder<Host, Set<TokenRange>> builder = ImmutableMap.builder();
-                    for (Host host : allTokens.keySet())
-                        builder.put(host, tokenRanges);
-                    ksRanges = builder.build();
-                } else {
-                    ksRanges = computeHostsToRangesMap(tokenRanges, ksTokens, hosts.size());
+            final List<Map.Entry<ReplicationStrategy, String>> entries = new ArrayList<Map.Entry<ReplicationStrategy, String>>(strategies.entrySet());
+            final Map<Token, Set<Host>>[] tokens = new Map[count];
+            final Map<Host, Set<TokenRange>>[] ranges = new Map[count];
+            final AtomicInteger next = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(count);
+            final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+            Runnable worker = new Runnable() {
+                @Override
+                public void run() {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        try {
+                            ReplicationStrategy strategy = entries.get(i).getKey();
+                            tokens[i] = (strategy == null)
+                                    ? makeNonReplicatedMap(tokenToPrimary)
+                                    : strategy.computeTokenToReplicaMap(entries.get(i).getValue(), tokenToPrimary, ring);
+                            ranges[i] = computeHostsToRanges(hosts, ring, tokenRanges, tokens[i]);
+                        } catch (Throwable t) {
+                            error.compareAndSet(null, t);
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }
+            };
+
+            if (executor != null) {
+                int helpers = Math.min(count, Runtime.getRuntime().availableProcessors()) - 1;
+                try {
+                    for (int i = 0; i < helpers; i++)
+                        executor.execute(worker);
+                } catch (RejectedExecutionException e) {
+                    // the cluster is shutting down, the remaining strategies will be computed by this thread
                 }
-                hostsToRanges.put(keyspace.getName(), ksRanges);
             }
-            return new TokenMap(factory, ring, tokenRanges, tokenToPrimary, allTokens, tokenToHosts, hostsToRanges);
+            worker.run();
+            Uninterruptibles.awaitUninterruptibly(done);
+
+            if (error.get() != null)
+                throw Throwables.propagate(error.get());
+            for (int i = 0; i < count; i++) {
+                replStrategyToHosts.put(entries.get(i).getKey(), tokens[i]);
+                replStrategyToRanges.put(entries.get(i).getKey(), ranges[i]);
+            }
+        }
+
+        private static Map<Host, Set<TokenRange>> computeHostsToRanges(Set<Host> hosts, List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Set<Host>> tokenToHosts) {
+            if (ring.size() == 1) {
+                // We forced the single range to ]minToken,minToken], make sure to use that instead of relying on the host's token
+                ImmutableMap.Builder<Host, Set<TokenRange>> builder = ImmutableMap.builder();
+                for (Host host : hosts)
+                    builder.put(host, tokenRanges);
+                return builder.build();
+            }
+            return computeHostsToRangesMap(tokenRanges, tokenToHosts, hosts.size());
+        }
+
+        private static Map<Host, String> locations(Set<Host> hosts) {
+            Map<Host, String> locations = Maps.newHashMapWithExpectedSize(hosts.size());
+            for (Host host : hosts)
+                locations.put(host, host.getDatacenter() + '/' + host.getRack());
+            return locations;
+        }
+
+        private Set<Host> getReplicas(String keyspace, ByteBuffer partitionKey) {
+            if (murmur3Ring != null)
+                return getMurmur3Replicas(keyspace, Token.M3PToken.hashToLong(partitionKey));
+            return getReplicas(keyspace, factory.hash(partitionKey));
         }
 
         private Set<Host> getReplicas(String keyspace, Token token) {
+            if (murmur3Ring != null && token instanceof Token.M3PToken)
+                return getMurmur3Replicas(keyspace, ((Token.M3PToken) token).longValue());
 
             Map<Token, Set<Host>> tokenToHosts = tokenToHostsByKeyspace.get(keyspace);
             if (tokenToHosts == null)
@@ -775,6 +931,63 @@ public class Metadata {
             return tokenToHosts.get(ring.get(i));
         }
 
+        private Set<Host> getMurmur3Replicas(String keyspace, long token) {
+            Set<Host>[] replicas = murmur3ReplicasByKeyspace.get(keyspace);
+            if (replicas == null || murmur3Ring.length == 0)
+                return Collections.emptySet();
+
+            // Find the first token of the ring that is greater or equal, wrapping around at the end of the ring
+            int i = Arrays.binarySearch(murmur3Ring, token);
+            if (i < 0) {
+                i = -i - 1;
+                if (i >= murmur3Ring.length)
+                    i = 0;
+            }
+            return replicas[i];
+        }
+
+        private void removeKeyspace(String keyspace) {
+            tokenToHostsByKeyspace.remove(keyspace);
+            if (murmur3ReplicasByKeyspace != null)
+                murmur3ReplicasByKeyspace.remove(keyspace);
+        }
+
+        private static long[] makeMurmur3Ring(List<Token> ring) {
+            long[] values = new long[ring.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = ((Token.M3PToken) ring.get(i)).longValue();
+            return values;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Set<Host>[]> makeMurmur3Replicas(List<Token> ring, Map<String, Map<Token, Set<Host>>> tokenToHostsByKeyspace, TokenMap previous) {
+            Map<String, Set<Host>[]> result = new HashMap<String, Set<Host>[]>(tokenToHostsByKeyspace.size());
+            // Keyspaces with the same replication strategy share their map, share the arrays too. If the previous token
+            // map had the same ring, the maps that were reused from it can also reuse its arrays.
+            Map<Map<Token, Set<Host>>, Set<Host>[]> arrays = new IdentityHashMap<Map<Token, Set<Host>>, Set<Host>[]>();
+            if (previous != null) {
+                for (Map.Entry<String, Map<Token, Set<Host>>> entry : previous.tokenToHostsByKeyspace.entrySet()) {
+                    Set<Host>[] replicas = previous.murmur3ReplicasByKeyspace.get(entry.getKey());
+                    if (replicas != null)
+                        arrays.put(entry.getValue(), replicas);
+                }
+            }
+            for (Map.Entry<String, Map<Token, Set<Host>>> entry : tokenToHostsByKeyspace.entrySet()) {
+                Map<Token, Set<Host>> tokenToHosts = entry.getValue();
+                Set<Host>[] replicas = arrays.get(tokenToHosts);
+                if (replicas == null) {
+                    replicas = new Set[ring.size()];
+                    for (int i = 0; i < replicas.length; i++) {
+                        Set<Host> hosts = tokenToHosts.get(ring.get(i));
+                        replicas[i] = hosts == null ? Collections.<Host>emptySet() : hosts;
+                    }
+                    arrays.put(tokenToHosts, replicas);
+                }
+                result.put(entry.getKey(), replicas);
+            }
+            return result;
+        }
+
         private static Map<Token, Set<Host>> makeNonReplicatedMap(Map<Token, Host> input) {
             Map<Token, Set<Host>> output = new HashMap<Token, Set<Host>>(input.size());
             for (Map.Entry<Token, Host> entry : input.entrySet())
@@ -32,8 +32,11 @@ public class Metrics {
     private final MetricRegistry registry = new MetricRegistry();
     private final JmxReporter jmxReporter;
     private final Errors errors = new Errors();
+    private final Compression compression = new Compression();
 
     private final Timer requests = registry.timer("requests");
+    private final Histogram framesPerFlush = registry.histogram("frames-per-flush");
+    private final Timer poolWaitTime = registry.timer("pool-wait-time");
 
     private final Gauge<Integer> knownHosts = registry.register("known-hosts", new Gauge<Integer>() {
         @Override
@@ -71,6 +74,29 @@ public class Metrics {
         }
     });
 
+    private final Gauge<Long> continuousPagingQueuedBytes = registry.register("continuous-paging-queued-bytes", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+            long value = 0;
+            for (SessionManager session : manager.sessions)
+                value += session.continuousPagingQueuedBytes.get();
+            return value;
+        }
+    });
+
+    private final Gauge<Integer> admissionControlLimit = registry.register("admission-control-limit", new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+            int value = 0;
+            for (SessionManager session : manager.sessions) {
+                AdmissionController controller = session.admissionController;
+                if (controller != null)
+                    value += controller.getLimit();
+            }
+            return value;
+        }
+    });
+
     private final Gauge<Integer> executorQueueDepth;
     private final Gauge<Integer> blockingExecutorQueueDepth;
     private final Gauge<Integer> reconnectionSchedulerQueueSize;
@@ -157,6 +183,38 @@ public class Metrics {
         return requests;
     }
 
+    /**
+     * Returns metrics on the number of frames written to a connection's socket with each flush.
+     * <p/>
+     * The driver coalesces concurrent writes to the same connection; this histogram shows how effective this is
+     * (higher values mean fewer write system calls per request). The amount of coalescing can be tuned with
+     * {@link SocketOptions#setFlushPolicy(FlushPolicy)}.
+     * <p/>
+     * Note that this metric is not updated if coalescing has been disabled with the
+     * {@code com.datastax.driver.DISABLE_COALESCING} system property.
+     *
+     * @return a {@code Histogram} of the number of frames per flush.
+     */
+    public Histogram getFramesPerFlush() {
+        return framesPerFlush;
+    }
+
+    /**
+     * Returns metrics on the time that requests spent waiting for a connection, when they were enqueued because all
+     * the connections to the target host were busy.
+     * <p/>
+     * Only the requests that eventually obtained a connection are recorded; those that timed out are reported as
+     * {@link com.datastax.driver.core.exceptions.BusyPoolException}s. The size of the wait queue and the maximum wait
+     * time are configured with {@link PoolingOptions#setMaxQueueSize(int)} and
+     * {@link PoolingOptions#setPoolTimeoutMillis(int)}.
+     *
+     * @return a {@code Timer} metric object exposing the rate and duration (including percentiles) of connection
+     * waits.
+     */
+    public Timer getPoolWaitTimer() {
+        return poolWaitTime;
+    }
+
     /**
      * Returns an object grouping metrics related to the errors encountered.
      *
@@ -166,6 +224,15 @@ public class Metrics {
         return errors;
     }
 
+    /**
+     * Returns an object grouping metrics related to the compression of requests.
+     *
+     * @return an object grouping metrics related to the compression of requests.
+     */
+    public Compression getCompressionMetrics() {
+        return compression;
+    }
+
     /**
      * Returns the number of Cassandra hosts currently known by the driver (that is
      * whether they are currently considered up or down).
@@ -209,6 +276,33 @@ public class Metrics {
         return trashedConnections;
     }
 
+    /**
+     * Returns the total size of the pages that were received for continuous paging queries, but not consumed by the
+     * client yet.
+     * <p/>
+     * This is summed across all the sessions of this cluster. It can be bounded on a per-query basis with
+     * {@link ContinuousPagingOptions.Builder#withMaxEnqueuedBytes(long)}.
+     *
+     * @return The total number of bytes of buffered continuous paging pages.
+     */
+    public Gauge<Long> getContinuousPagingQueuedBytes() {
+        return continuousPagingQueuedBytes;
+    }
+
+    /**
+     * Returns the current concurrency limit of admission control.
+     * <p/>
+     * This is summed across all the sessions of this cluster, and is 0 if admission control is disabled (see
+     * {@link PoolingOptions#setMaxRequestsPerSession(int)}). A limit that drops below the configured maximum
+     * indicates that the driver observed increasing latencies or overload errors, and is rejecting requests with
+     * {@link com.datastax.driver.core.exceptions.BusySessionException} to shed load.
+     *
+     * @return The current concurrency limit of all sessions.
+     */
+    public Gauge<Integer> getAdmissionControlLimit() {
+        return admissionControlLimit;
+    }
+
     /**
      * Returns the number of queued up tasks in the {@link ThreadingOptions#createExecutor(String) main internal executor}.
      * <p/>
@@ -591,4 +685,85 @@ public class Metrics {
             return speculativeExecutions;
         }
     }
+
+    /**
+     * Metrics on the compression of requests.
+     * <p/>
+     * These metrics are only updated if compression is enabled (see {@link ProtocolOptions#setCompression}).
+     * They can help tune {@link ProtocolOptions#setCompressionThreshold(int)} and
+     * {@link ProtocolOptions#setAdaptiveCompressionRatio(double)}, by comparing the bytes saved to the time spent
+     * compressing.
+     */
+    public class Compression {
+
+        private final Counter compressedRequests = registry.counter("compression-compressed-requests");
+        private final Counter uncompressedRequests = registry.counter("compression-uncompressed-requests");
+        private final Counter bytesIn = registry.counter("compression-bytes-in");
+        private final Counter bytesOut = registry.counter("compression-bytes-out");
+        private final Counter nanos = registry.counter("compression-nanos");
+        private final Gauge<Double> ratio = registry.register("compression-ratio", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                long in = bytesIn.getCount();
+                return in == 0 ? 1.0 : (double) bytesOut.getCount() / in;
+            }
+        });
+
+        /**
+         * Returns the number of requests that were compressed.
+         *
+         * @return the number of compressed requests.
+         */
+        public Counter getCompressedRequests() {
+            return compressedRequests;
+        }
+
+        /**
+         * Returns the number of requests that were sent uncompressed, either because they were below
+         * {@link ProtocolOptions#getCompressionThreshold() the compression threshold}, or because
+         * {@link ProtocolOptions#getAdaptiveCompressionRatio() adaptive compression} had disabled compression on
+         * their connection.
+         *
+         * @return the number of uncompressed requests.
+         */
+        public Counter getUncompressedRequests() {
+            return uncompressedRequests;
+        }
+
+        /**
+         * Returns the total size of compressed requests, before compression.
+         *
+         * @return the number of bytes.
+         */
+        public Counter getBytesIn() {
+            return bytesIn;
+        }
+
+        /**
+         * Returns the total size of compressed requests, after compression.
+         *
+         * @return the number of bytes.
+         */
+        public Counter getBytesOut() {
+            return bytesOut;
+        }
+
+        /**
+         * Returns the total time spent compressing requests.
+         *
+         * @return the time, in nanoseconds.
+         */
+        public Counter getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the overall compression ratio, that is {@link #getBytesOut()} divided by {@link #getBytesIn()}.
+         *
+         * @return the ratio (lower is better), or 1 if no requests were compressed yet.
+         */
+        public Gauge<Double> getRatio() {
+            return ratio;
+        }
+    }
 }
@@ -73,7 +73,10 @@ public class PagingState {
             if (statement instanceof BoundStatement) {
                 BoundStatement bs = ((BoundStatement) statement);
                 md.update(bs.preparedStatement().getQueryString().getBytes());
-                values = bs.wrapper.values;
+                // go through getValue, deferred values are not stored in serialized form
+                values = new ByteBuffer[bs.wrapper.values.length];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = bs.wrapper.getValue(i);
             } else {
                 //it is a RegularStatement since Batch statements are not allowed
                 RegularStatement rs = (RegularStatement) statement;
@@ -132,6 +132,32 @@ public class PoolingOptions {
      */
     public static final int DEFAULT_HEARTBEAT_INTERVAL_SECONDS = 30;
 
+    /**
+     * The strategies to select a connection in a host's pool when a request is sent to that host.
+     *
+     * @see #setConnectionSelection(ConnectionSelection)
+     */
+    public enum ConnectionSelection {
+        /**
+         * Inspect all the connections of the pool, and select the one that has the fewest in-flight requests.
+         * <p/>
+         * This gives the most even distribution of requests, but the cost of each selection grows with the number
+         * of connections, and all the requests to a host update the same shared in-flight counter.
+         */
+        LEAST_BUSY,
+
+        /**
+         * Pick two connections at random, and select the one that has the fewest in-flight requests (if both are
+         * full, fall back to inspecting all the connections before giving up).
+         * <p/>
+         * This is known to give a near-optimal distribution of the load, at a constant cost regardless of the
+         * number of connections. In addition, the pool does not maintain a shared in-flight counter: the total load
+         * is derived from per-connection counters when needed, which avoids contention when many threads send
+         * requests to the same host. This is recommended with large pools and highly concurrent clients.
+         */
+        POWER_OF_TWO_CHOICES
+    }
+
     private static final Executor DEFAULT_INITIALIZATION_EXECUTOR = GuavaCompatibility.INSTANCE.sameThreadExecutor();
 
     private volatile Cluster.Manager manager;
@@ -151,6 +177,10 @@ public class PoolingOptions {
     private volatile int heartbeatIntervalSeconds = DEFAULT_HEARTBEAT_INTERVAL_SECONDS;
 
     private volatile Executor initializationExecutor = DEFAULT_INITIALIZATION_EXECUTOR;
+    private volatile ConnectionSelection connectionSelection = ConnectionSelection.LEAST_BUSY;
+    private volatile int maxRequestsPerSession = 0;
+    private volatile double extraExecutionsPerSecond = 0;
+    private volatile int extraExecutionsBurst = 0;
 
     public PoolingOptions() {
     }
@@ -536,6 +566,122 @@ public class PoolingOptions {
         return this;
     }
 
+    /**
+     * Returns the strategy used to select a connection in a host's pool.
+     *
+     * @return the strategy.
+     * @see #setConnectionSelection(ConnectionSelection)
+     */
+    public ConnectionSelection getConnectionSelection() {
+        return connectionSelection;
+    }
+
+    /**
+     * Sets the strategy used to select a connection in a host's pool.
+     * <p/>
+     * The default is {@link ConnectionSelection#LEAST_BUSY}. Note that the strategy is read when a pool gets
+     * created, so changing it at runtime only affects the pools that are created afterwards.
+     *
+     * @param connectionSelection the new strategy.
+     * @return this {@code PoolingOptions}
+     * @throws java.lang.NullPointerException if the strategy is null
+     */
+    public PoolingOptions setConnectionSelection(ConnectionSelection connectionSelection) {
+        Preconditions.checkNotNull(connectionSelection);
+        this.connectionSelection = connectionSelection;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of concurrent requests per session, when admission control is enabled.
+     *
+     * @return the maximum, or 0 if admission control is disabled.
+     * @see #setMaxRequestsPerSession(int)
+     */
+    public int getMaxRequestsPerSession() {
+        return maxRequestsPerSession;
+    }
+
+    /**
+     * Enables admission control, and sets the maximum number of concurrent requests per session.
+     * <p/>
+     * With admission control, each session limits the number of requests that it executes concurrently. The limit
+     * adapts to the observed latency: it shrinks when latency increases above the lowest latency observed recently, or
+     * when requests fail because of overload (busy pools, client timeouts or server overload), and grows back up to
+     * the maximum when latency returns to normal. Requests beyond the limit are rejected immediately with a
+     * {@link com.datastax.driver.core.exceptions.BusySessionException}, instead of being enqueued in the connection
+     * pools (see {@link #setMaxQueueSize(int)}) where they would only add to the latency of an overloaded cluster.
+     * <p/>
+     * The current limit is exposed by {@link Metrics#getAdmissionControlLimit()}.
+     * <p/>
+     * Admission control applies to requests executed with {@link Session#executeAsync(Statement)} (and its synchronous
+     * variants). Requests issued internally by the driver, as well as continuous paging queries, are not limited.
+     * The option is read when a session gets created.
+     * <p/>
+     * The default value is 0, which disables admission control.
+     *
+     * @param maxRequestsPerSession the new value, or 0 to disable admission control.
+     * @return this {@code PoolingOptions}
+     * @throws IllegalArgumentException if the value is negative.
+     */
+    public PoolingOptions setMaxRequestsPerSession(int maxRequestsPerSession) {
+        if (maxRequestsPerSession < 0)
+            throw new IllegalArgumentException("Max requests per session must be positive");
+        this.maxRequestsPerSession = maxRequestsPerSession;
+        return this;
+    }
+
+    /**
+     * Returns the maximum rate of retries and speculative executions per host.
+     *
+     * @return the rate, in executions per second, or 0 if they are not throttled.
+     * @see #setExtraExecutionsThrottling(double, int)
+     */
+    public double getExtraExecutionsPerSecond() {
+        return extraExecutionsPerSecond;
+    }
+
+    /**
+     * Returns the maximum number of retries and speculative executions that can be sent to a host in a burst.
+     *
+     * @return the burst, or 0 if they are not throttled.
+     * @see #setExtraExecutionsThrottling(double, int)
+     */
+    public int getExtraExecutionsBurst() {
+        return extraExecutionsBurst;
+    }
+
+    /**
+     * Throttles the retries and speculative executions sent to each host.
+     * <p/>
+     * Retries and speculative executions add load to the cluster precisely when a node is struggling. With this
+     * option, each session limits the rate at which they are sent to each host with a token bucket: up to
+     * {@code burst} executions can be sent at once, and then {@code permitsPerSecond} per second. When a host has no
+     * permit left, the execution skips it and moves to the next host in the query plan, as if its pool was busy.
+     * <p/>
+     * The first execution of each request is never throttled (see {@link #setMaxRequestsPerSession(int)} to limit the
+     * overall load). This option is read when a pool gets created, so changing it at runtime only affects the pools
+     * that are created afterwards.
+     * <p/>
+     * By default, retries and speculative executions are not throttled.
+     *
+     * @param permitsPerSecond the maximum sustained rate of retries and speculative executions per host, or 0 to
+     *                         disable throttling.
+     * @param burst            the maximum number of retries and speculative executions that can be sent to a host
+     *                         at once. Ignored if {@code permitsPerSecond} is 0.
+     * @return this {@code PoolingOptions}
+     * @throws IllegalArgumentException if the rate is negative, or if it is positive and the burst is not.
+     */
+    public PoolingOptions setExtraExecutionsThrottling(double permitsPerSecond, int burst) {
+        if (permitsPerSecond < 0)
+            throw new IllegalArgumentException("Extra executions rate must be positive");
+        if (permitsPerSecond > 0 && burst < 1)
+            throw new IllegalArgumentException("Extra executions burst must be strictly positive");
+        this.extraExecutionsPerSecond = permitsPerSecond;
+        this.extraExecutionsBurst = permitsPerSecond > 0 ? burst : 0;
+        return this;
+    }
+
     synchronized void setProtocolVersion(ProtocolVersion actualVersion) {
         this.protocolVersion = actualVersion;
 
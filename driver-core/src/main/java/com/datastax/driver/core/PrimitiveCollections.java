@@ -0,0 +1,504 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import java.nio.ByteBuffer;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Support for collection codecs whose elements are of a fixed-size numeric type ({@code int}, {@code bigint},
+ * {@code float} or {@code double}).
+ * <p/>
+ * The elements of such collections are read and written directly from and to the serialized form of the collection,
+ * instead of going through a {@code ByteBuffer} per element. Lists are deserialized into lists backed by a primitive
+ * array, that only box elements when they are accessed through the {@code List} interface.
+ */
+class PrimitiveCollections {
+
+    /**
+     * The fixed-size numeric types that collection codecs handle directly.
+     * <p/>
+     * Only the built-in codecs are recognized: a custom codec might map the same CQL type to another Java type.
+     */
+    enum Kind {
+        INT(4) {
+            @Override
+            Object read(ByteBuffer input) {
+                return input.getInt();
+            }
+
+            @Override
+            void write(ByteBuffer output, Object value) {
+                output.putInt((Integer) value);
+            }
+
+            @Override
+            PrimitiveList<?> newList(int capacity) {
+                return new IntList(capacity);
+            }
+        },
+        BIGINT(8) {
+            @Override
+            Object read(ByteBuffer input) {
+                return input.getLong();
+            }
+
+            @Override
+            void write(ByteBuffer output, Object value) {
+                output.putLong((Long) value);
+            }
+
+            @Override
+            PrimitiveList<?> newList(int capacity) {
+                return new LongList(capacity);
+            }
+        },
+        FLOAT(4) {
+            @Override
+            Object read(ByteBuffer input) {
+                return input.getFloat();
+            }
+
+            @Override
+            void write(ByteBuffer output, Object value) {
+                output.putFloat((Float) value);
+            }
+
+            @Override
+            PrimitiveList<?> newList(int capacity) {
+                return new FloatList(capacity);
+            }
+        },
+        DOUBLE(8) {
+            @Override
+            Object read(ByteBuffer input) {
+                return input.getDouble();
+            }
+
+            @Override
+            void write(ByteBuffer output, Object value) {
+                output.putDouble((Double) value);
+            }
+
+            @Override
+            PrimitiveList<?> newList(int capacity) {
+                return new DoubleList(capacity);
+            }
+        };
+
+        final int size;
+
+        Kind(int size) {
+            this.size = size;
+        }
+
+        abstract Object read(ByteBuffer input);
+
+        /**
+         * @throws ClassCastException if {@code value} is not of the Java type of this kind.
+         */
+        abstract void write(ByteBuffer output, Object value);
+
+        abstract PrimitiveList<?> newList(int capacity);
+
+        /**
+         * Returns the kind of the elements handled by {@code codec}, or {@code null} if they can't be handled directly.
+         */
+        static Kind of(TypeCodec<?> codec) {
+            if (codec == TypeCodec.cint())
+                return INT;
+            if (codec == TypeCodec.bigint())
+                return BIGINT;
+            if (codec == TypeCodec.cfloat())
+                return FLOAT;
+            if (codec == TypeCodec.cdouble())
+                return DOUBLE;
+            return null;
+        }
+    }
+
+    /**
+     * Returns the size of {@code count} serialized elements of the given kind, including their sizes.
+     */
+    static int sizeOfElements(Kind kind, int count, ProtocolVersion protocolVersion) {
+        return count * (CodecUtils.sizeOfCollectionSize(protocolVersion) + kind.size);
+    }
+
+    /**
+     * Writes an element of the given kind, preceded by its size.
+     *
+     * @throws ClassCastException if {@code value} is not of the Java type of {@code kind}.
+     */
+    static void writeElement(ByteBuffer output, Kind kind, Object value, ProtocolVersion protocolVersion) {
+        CodecUtils.writeSize(output, kind.size, protocolVersion);
+        kind.write(output, value);
+    }
+
+    /**
+     * Writes the elements of {@code value}, each preceded by its size, if it is a primitive-backed list of the given
+     * kind.
+     *
+     * @return whether the elements were written.
+     */
+    static boolean writeList(ByteBuffer output, Kind kind, Collection<?> value, ProtocolVersion protocolVersion) {
+        if (!(value instanceof PrimitiveList) || ((PrimitiveList<?>) value).kind() != kind)
+            return false;
+        PrimitiveList<?> list = (PrimitiveList<?>) value;
+        for (int i = 0; i < list.size; i++) {
+            CodecUtils.writeSize(output, kind.size, protocolVersion);
+            list.write(output, i);
+        }
+        return true;
+    }
+
+    /**
+     * Reads an element of the given kind, preceded by its size.
+     * <p/>
+     * Elements that do not have the size of {@code kind} (null or empty values) are deserialized by {@code codec}.
+     */
+    static Object readElement(ByteBuffer input, Kind kind, TypeCodec<?> codec, ProtocolVersion protocolVersion) {
+        int size = CodecUtils.readSize(input, protocolVersion);
+        if (size == kind.size)
+            return kind.read(input);
+        return codec.deserialize(size < 0 ? null : CodecUtils.readBytes(input, size), protocolVersion);
+    }
+
+    /**
+     * Reads {@code count} elements of the given kind, each preceded by its size, into a primitive-backed list.
+     *
+     * @return the list, or {@code null} if an element does not have the size of {@code kind}; a primitive-backed list
+     * can't hold the {@code null} such an element deserializes to, so the collection must then be read by the generic
+     * codec.
+     */
+    static PrimitiveList<?> readList(ByteBuffer input, Kind kind, int count, ProtocolVersion protocolVersion) {
+        PrimitiveList<?> list = kind.newList(count);
+        for (int i = 0; i < count; i++) {
+            if (CodecUtils.readSize(input, protocolVersion) != kind.size)
+                return null;
+            list.read(input);
+        }
+        return list;
+    }
+
+    /**
+     * A list backed by a primitive array.
+     * <p/>
+     * Like {@code ArrayList}, it is mutable and not thread-safe, and it supports all optional operations except
+     * storing {@code null} elements. It is serialized as an {@code ArrayList}, so that it can be deserialized without
+     * the driver's internals.
+     */
+    abstract static class PrimitiveList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected int size;
+
+        /**
+         * Appends an element read from {@code input}.
+         */
+        abstract void read(ByteBuffer input);
+
+        /**
+         * Writes the element at {@code index} to {@code output}.
+         */
+        abstract void write(ByteBuffer output, int index);
+
+        abstract int capacity();
+
+        abstract void grow(int capacity);
+
+        abstract void move(int from, int to, int length);
+
+        abstract void store(int index, E element);
+
+        abstract Kind kind();
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public E set(int index, E element) {
+            E previous = get(index);
+            store(index, element);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            if (index < 0 || index > size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            if (element == null)
+                throw new NullPointerException();
+            ensureCapacity(size + 1);
+            move(index, index + 1, size - index);
+            size += 1;
+            modCount += 1;
+            store(index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            E previous = get(index);
+            move(index + 1, index, size - index - 1);
+            size -= 1;
+            modCount += 1;
+            return previous;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            move(toIndex, fromIndex, size - toIndex);
+            size -= toIndex - fromIndex;
+            modCount += 1;
+        }
+
+        protected void checkIndex(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        protected void ensureCapacity(int capacity) {
+            if (capacity > capacity())
+                grow(Math.max(capacity, capacity() + (capacity() >> 1) + 1));
+        }
+
+        protected Object writeReplace() {
+            return new ArrayList<E>(this);
+        }
+    }
+
+    static class IntList extends PrimitiveList<Integer> {
+
+        private int[] values;
+
+        IntList(int capacity) {
+            this.values = new int[capacity];
+        }
+
+        int getInt(int index) {
+            checkIndex(index);
+            return values[index];
+        }
+
+        @Override
+        public Integer get(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        void store(int index, Integer element) {
+            checkIndex(index);
+            values[index] = element;
+        }
+
+        @Override
+        void read(ByteBuffer input) {
+            ensureCapacity(size + 1);
+            values[size++] = input.getInt();
+        }
+
+        @Override
+        void write(ByteBuffer output, int index) {
+            output.putInt(values[index]);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.INT;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+    }
+
+    static class LongList extends PrimitiveList<Long> {
+
+        private long[] values;
+
+        LongList(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        long getLong(int index) {
+            checkIndex(index);
+            return values[index];
+        }
+
+        @Override
+        public Long get(int index) {
+            return getLong(index);
+        }
+
+        @Override
+        void store(int index, Long element) {
+            checkIndex(index);
+            values[index] = element;
+        }
+
+        @Override
+        void read(ByteBuffer input) {
+            ensureCapacity(size + 1);
+            values[size++] = input.getLong();
+        }
+
+        @Override
+        void write(ByteBuffer output, int index) {
+            output.putLong(values[index]);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.BIGINT;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+    }
+
+    static class FloatList extends PrimitiveList<Float> {
+
+        private float[] values;
+
+        FloatList(int capacity) {
+            this.values = new float[capacity];
+        }
+
+        float getFloat(int index) {
+            checkIndex(index);
+            return values[index];
+        }
+
+        @Override
+        public Float get(int index) {
+            return getFloat(index);
+        }
+
+        @Override
+        void store(int index, Float element) {
+            checkIndex(index);
+            values[index] = element;
+        }
+
+        @Override
+        void read(ByteBuffer input) {
+            ensureCapacity(size + 1);
+            values[size++] = input.getFloat();
+        }
+
+        @Override
+        void write(ByteBuffer output, int index) {
+            output.putFloat(values[index]);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.FLOAT;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+    }
+
+    static class DoubleList extends PrimitiveList<Double> {
+
+        private double[] values;
+
+        DoubleList(int capacity) {
+            this.values = new double[capacity];
+        }
+
+        double getDouble(int index) {
+            checkIndex(index);
+            return values[index];
+        }
+
+        @Override
+        public Double get(int index) {
+            return getDouble(index);
+        }
+
+        @Override
+        void store(int index, Double element) {
+            checkIndex(index);
+            values[index] = element;
+        }
+
+        @Override
+        void read(ByteBuffer input) {
+            ensureCapacity(size + 1);
+            values[size++] = input.getDouble();
+        }
+
+        @Override
+        void write(ByteBuffer output, int index) {
+            output.putDouble(values[index]);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.DOUBLE;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+    }
+}
@@ -7,6 +7,7 @@
 package com.datastax.driver.core;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 
 /**
  * Options of the Cassandra native binary protocol.
@@ -43,6 +44,19 @@ public class ProtocolOptions {
             FrameCompressor compressor() {
                 return FrameCompressor.LZ4Compressor.instance;
             }
+        },
+        /**
+         * LZ4 compression, using LZ4's high compression mode for requests.
+         * <p/>
+         * Requests are smaller than with {@link #LZ4}, at the cost of more CPU time to compress them. This is useful
+         * when network bandwidth is the bottleneck (for example, across datacenters). The output is regular LZ4 data,
+         * so this is negotiated as {@code lz4} with the server; responses are compressed by the server as usual.
+         */
+        LZ4_HC("lz4") {
+            @Override
+            FrameCompressor compressor() {
+                return FrameCompressor.LZ4Compressor.highCompressionInstance;
+            }
         };
 
         final String protocolName;
@@ -91,6 +105,8 @@ public class ProtocolOptions {
     private final AuthProvider authProvider;
 
     private volatile Compression compression = Compression.NONE;
+    private volatile int compressionThreshold = 0;
+    private volatile double adaptiveCompressionRatio = 0;
 
     /**
      * Creates a new {@code ProtocolOptions} instance using the {@code DEFAULT_PORT}
@@ -192,6 +208,74 @@ public class ProtocolOptions {
         return this;
     }
 
+    /**
+     * Returns the minimum size of a request body for it to be compressed.
+     *
+     * @return the threshold, in bytes.
+     * @see #setCompressionThreshold(int)
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Sets the minimum size of a request body for it to be compressed.
+     * <p/>
+     * When compression is enabled, requests with a smaller body (for example, executions of prepared statements with
+     * a few small values) are sent uncompressed, because compressing them would cost CPU for little or no gain.
+     * Note that this only applies to requests; the server decides whether to compress responses.
+     * <p/>
+     * The default value is 0 (compress all requests). This setting can be changed at any time, and applies to
+     * existing connections.
+     *
+     * @param compressionThreshold the threshold, in bytes. Must be positive or zero.
+     * @return this {@code ProtocolOptions} object.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public ProtocolOptions setCompressionThreshold(int compressionThreshold) {
+        Preconditions.checkArgument(compressionThreshold >= 0,
+                "compression threshold must be positive or zero (was %s)", compressionThreshold);
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the compression ratio above which a connection stops compressing requests.
+     *
+     * @return the ratio, or 0 if adaptive compression is disabled.
+     * @see #setAdaptiveCompressionRatio(double)
+     */
+    public double getAdaptiveCompressionRatio() {
+        return adaptiveCompressionRatio;
+    }
+
+    /**
+     * Enables adaptive compression, by setting the compression ratio above which a connection stops compressing
+     * requests.
+     * <p/>
+     * Each connection tracks a moving average of the ratio between the compressed and uncompressed sizes of the
+     * requests it sends. If that ratio goes above the given value (meaning that compression does not save enough
+     * bytes to be worth its CPU cost), the connection stops compressing requests. It still compresses one eligible
+     * request out of 64, in order to detect when the workload becomes compressible again, at which point compression
+     * is re-enabled.
+     * <p/>
+     * For example, with a ratio of 0.9, a connection stops compressing if requests don't shrink by more than 10% on
+     * average.
+     * <p/>
+     * The default value is 0 (adaptive compression disabled). This setting can be changed at any time, and applies to
+     * existing connections. The effect of compression can be monitored with {@link Metrics#getCompressionMetrics()}.
+     *
+     * @param adaptiveCompressionRatio the ratio, or 0 to disable adaptive compression. Must be positive or zero.
+     * @return this {@code ProtocolOptions} object.
+     * @throws IllegalArgumentException if the ratio is negative.
+     */
+    public ProtocolOptions setAdaptiveCompressionRatio(double adaptiveCompressionRatio) {
+        Preconditions.checkArgument(adaptiveCompressionRatio >= 0,
+                "adaptive compression ratio must be positive or zero (was %s)", adaptiveCompressionRatio);
+        this.adaptiveCompressionRatio = adaptiveCompressionRatio;
+        return this;
+    }
+
     /**
      * Returns the maximum time to wait for schema agreement before returning from a DDL query.
      *
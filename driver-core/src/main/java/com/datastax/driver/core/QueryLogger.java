@@ -710,7 +710,7 @@ public abstract class QueryLogger implements LatencyTracker {
                 else
                     buffer.append(", ");
                 String value = statement.isSet(i)
-                        ? parameterValueAsString(definitions.get(i), statement.wrapper.values[i])
+                        ? parameterValueAsString(definitions.get(i), statement.wrapper.getValue(i))
                         : "<UNSET>";
                 buffer.append(String.format("%s:%s", metadata.getName(i), value));
             }
@@ -8,6 +8,7 @@ package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.UnsupportedFeatureException;
 import com.datastax.driver.core.utils.MoreFutures;
+import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.Futures;
 
 /**
@@ -35,6 +36,16 @@ public class QueryOptions {
      */
     public static final boolean DEFAULT_IDEMPOTENCE = false;
 
+    /**
+     * The default value for {@link #getPrefetchThreshold()}: {@value}, which disables automatic prefetching.
+     */
+    public static final double DEFAULT_PREFETCH_THRESHOLD = 1.0;
+
+    /**
+     * The default value for {@link #getMaxPrefetchedPages()}: {@value}.
+     */
+    public static final int DEFAULT_MAX_PREFETCHED_PAGES = 1;
+
     public static final int DEFAULT_MAX_PENDING_REFRESH_NODE_LIST_REQUESTS = 20;
 
     public static final int DEFAULT_MAX_PENDING_REFRESH_NODE_REQUESTS = 20;
@@ -51,6 +62,8 @@ public class QueryOptions {
     private volatile ConsistencyLevel serialConsistency = DEFAULT_SERIAL_CONSISTENCY_LEVEL;
     private volatile int fetchSize = DEFAULT_FETCH_SIZE;
     private volatile boolean defaultIdempotence = DEFAULT_IDEMPOTENCE;
+    private volatile double prefetchThreshold = DEFAULT_PREFETCH_THRESHOLD;
+    private volatile int maxPrefetchedPages = DEFAULT_MAX_PREFETCHED_PAGES;
 
     private volatile boolean metadataEnabled = true;
 
@@ -65,6 +78,8 @@ public class QueryOptions {
     private volatile boolean reprepareOnUp = true;
     private volatile Cluster.Manager manager;
     private volatile boolean prepareOnAllHosts = true;
+    private volatile boolean deferValueSerialization = false;
+    private volatile boolean zeroCopyBlobs = false;
 
     /**
      * Creates a new {@link QueryOptions} instance using the {@link #DEFAULT_CONSISTENCY_LEVEL},
@@ -188,6 +203,74 @@ public class QueryOptions {
         return defaultIdempotence;
     }
 
+    /**
+     * Sets the default prefetch threshold for paged queries.
+     * <p/>
+     * When a result set spans multiple pages, the driver will automatically start fetching the next page once this
+     * fraction of the current page has been consumed, so that the network round-trip overlaps with the processing
+     * of the remaining rows. For example, with a threshold of 0.5 and a fetch size of 5000, the next page is requested
+     * when the 2500th row of the current page is returned by {@link ResultSet#one()}.
+     * <p/>
+     * The number of pages that can be fetched in advance is bounded by {@link #setMaxPrefetchedPages(int)}.
+     * <p/>
+     * This will be used for statements for which {@link Statement#getPrefetchThreshold()} is negative.
+     *
+     * @param prefetchThreshold the new threshold, between 0 (start fetching the next page as soon as a page starts
+     *                          being consumed) and 1 (only fetch the next page once the current one is exhausted,
+     *                          which is the default and disables automatic prefetching).
+     * @return this {@code QueryOptions} instance.
+     * @throws IllegalArgumentException if {@code prefetchThreshold} is not between 0 and 1.
+     */
+    public QueryOptions setPrefetchThreshold(double prefetchThreshold) {
+        Preconditions.checkArgument(prefetchThreshold >= 0 && prefetchThreshold <= 1,
+                "prefetch threshold must be between 0 and 1 (was %s)", prefetchThreshold);
+        this.prefetchThreshold = prefetchThreshold;
+        return this;
+    }
+
+    /**
+     * The default prefetch threshold for paged queries.
+     * <p/>
+     * It defaults to {@link #DEFAULT_PREFETCH_THRESHOLD}.
+     *
+     * @return the default prefetch threshold.
+     * @see #setPrefetchThreshold(double)
+     */
+    public double getPrefetchThreshold() {
+        return prefetchThreshold;
+    }
+
+    /**
+     * Sets the maximum number of pages that can be fetched in advance by automatic prefetching.
+     * <p/>
+     * Pages that have been received but not yet consumed are buffered in memory; this setting bounds that memory
+     * to roughly {@code maxPrefetchedPages * fetchSize} rows per result set. It has no effect if automatic
+     * prefetching is disabled, and does not apply to pages requested explicitly with
+     * {@link ResultSet#fetchMoreResults()}.
+     *
+     * @param maxPrefetchedPages the new maximum. Must be strictly positive.
+     * @return this {@code QueryOptions} instance.
+     * @throws IllegalArgumentException if {@code maxPrefetchedPages &lte; 0}.
+     */
+    public QueryOptions setMaxPrefetchedPages(int maxPrefetchedPages) {
+        Preconditions.checkArgument(maxPrefetchedPages > 0,
+                "max prefetched pages must be strictly positive (was %s)", maxPrefetchedPages);
+        this.maxPrefetchedPages = maxPrefetchedPages;
+        return this;
+    }
+
+    /**
+     * The maximum number of pages that can be fetched in advance by automatic prefetching.
+     * <p/>
+     * It defaults to {@link #DEFAULT_MAX_PREFETCHED_PAGES}.
+     *
+     * @return the maximum number of prefetched pages.
+     * @see #setMaxPrefetchedPages(int)
+     */
+    public int getMaxPrefetchedPages() {
+        return maxPrefetchedPages;
+    }
+
     /**
      * Set whether the driver should prepare statements on all hosts in the cluster.
      * <p/>
@@ -264,6 +347,80 @@ public class QueryOptions {
         return this.reprepareOnUp;
     }
 
+    /**
+     * Set whether bound statements should defer the serialization of their numeric values until their request is
+     * encoded.
+     * <p/>
+     * This option is disabled by default.
+     * <p/>
+     * When it is enabled, {@code int}, {@code bigint}, {@code float} and {@code double} values set on a
+     * {@link BoundStatement} (with the built-in codecs) are recorded as is, and written directly into the outgoing
+     * frame when the request is sent, instead of being serialized into a buffer of their own first. This saves an
+     * allocation and a copy per value, which can make a difference for write-intensive workloads.
+     * <p/>
+     * Accessing such a value with {@link BoundStatement#getBytesUnsafe(int)} serializes it on each call.
+     * This option only applies to statements bound after it was changed.
+     *
+     * @param deferValueSerialization whether bound statements should defer the serialization of their numeric values.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setDeferValueSerialization(boolean deferValueSerialization) {
+        this.deferValueSerialization = deferValueSerialization;
+        return this;
+    }
+
+    /**
+     * Returns whether bound statements defer the serialization of their numeric values until their request is
+     * encoded.
+     *
+     * @return the value.
+     * @see #setDeferValueSerialization(boolean)
+     */
+    public boolean isDeferValueSerialization() {
+        return this.deferValueSerialization;
+    }
+
+    /**
+     * Set whether the rows of results that contain blobs should be read directly from the response buffer, instead of
+     * being copied out of it.
+     * <p/>
+     * This option is disabled by default.
+     * <p/>
+     * When it is enabled, the rows of the statements that {@link Statement#setZeroCopyBlobs(boolean) opt in} are read
+     * directly from the network buffer that their page was received in: their values (as returned by
+     * {@link Row#getBytes(int)} or {@link Row#getBytesUnsafe(int)}) are read-only views over that buffer. This avoids
+     * copying large values, at the cost of holding on to the buffer (which comes from a pool shared by all connections)
+     * until the result set is released: <b>{@link ResultSet#release()} must be called</b> once the rows and the values
+     * obtained from them are not used anymore, otherwise the buffers leak. After that, accessing the values of a row
+     * throws an {@code IllegalStateException}, and the views that were obtained before <b>must not be used anymore</b>,
+     * since the memory they point to can be reused for other responses: copy any value that must outlive its result
+     * set.
+     * <p/>
+     * The rows of other statements, and the rows of results that are not handed to the client as a {@link ResultSet}
+     * (for example with continuous paging), are copied out of the buffer as usual.
+     * <p/>
+     * If result metadata is skipped (which is the case for most bound statements), the driver can't tell if a page
+     * contains blobs: all such pages are then read directly from the response buffer.
+     * This option applies to the responses received after it was changed.
+     *
+     * @param zeroCopyBlobs whether rows that contain blobs should be read directly from the response buffer.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setZeroCopyBlobs(boolean zeroCopyBlobs) {
+        this.zeroCopyBlobs = zeroCopyBlobs;
+        return this;
+    }
+
+    /**
+     * Returns whether the rows of results that contain blobs are read directly from the response buffer.
+     *
+     * @return the value.
+     * @see #setZeroCopyBlobs(boolean)
+     */
+    public boolean isZeroCopyBlobs() {
+        return this.zeroCopyBlobs;
+    }
+
     /**
      * Toggle client-side token and schema metadata.
      * <p/>
@@ -58,11 +58,16 @@ class RequestHandler {
 
     private final Timer.Context timerContext;
     private final long startTime;
+    private final AdmissionController admissionController; // null if the request is not subject to admission control
 
     private final AtomicBoolean isDone = new AtomicBoolean();
     private final AtomicInteger executionCount = new AtomicInteger();
 
     public RequestHandler(SessionManager manager, Callback callback, Statement statement) {
+        this(manager, callback, statement, null);
+    }
+
+    RequestHandler(SessionManager manager, Callback callback, Statement statement, AdmissionController admissionController) {
         this.id = Long.toString(System.identityHashCode(this));
         if (logger.isTraceEnabled())
             logger.trace("[{}] {}", id, statement);
@@ -82,6 +87,7 @@ class RequestHandler {
                 ? metrics().getRequestsTimer().time()
                 : null;
         this.startTime = System.nanoTime();
+        this.admissionController = admissionController;
     }
 
     void sendRequest() {
@@ -94,6 +100,8 @@ class RequestHandler {
             return;
 
         cancelPendingExecutions(null);
+        if (admissionController != null)
+            admissionController.onCancelled();
     }
 
     private void startNewExecution() {
@@ -156,6 +164,8 @@ class RequestHandler {
         try {
             if (timerContext != null)
                 timerContext.stop();
+            if (admissionController != null)
+                admissionController.onCompleted(System.nanoTime() - startTime, null);
 
             ExecutionInfo info = execution.current.defaultExecutionInfo;
             if (triedHosts != null) {
@@ -190,6 +200,8 @@ class RequestHandler {
         try {
             if (timerContext != null)
                 timerContext.stop();
+            if (admissionController != null)
+                admissionController.onCompleted(System.nanoTime() - startTime, exception);
         } finally {
             callback.onException(connection, exception, System.nanoTime() - startTime, /*unused*/0);
         }
@@ -237,6 +249,7 @@ class RequestHandler {
     class SpeculativeExecution implements Connection.ResponseCallback {
         final String id;
         private final Message.Request request;
+        private final boolean speculative;
         private volatile Host current;
         private volatile ConsistencyLevel retryConsistencyLevel;
         private final AtomicReference<QueryState> queryStateRef;
@@ -253,6 +266,7 @@ class RequestHandler {
         SpeculativeExecution(Message.Request request, int position) {
             this.id = RequestHandler.this.id + "-" + position;
             this.request = request;
+            this.speculative = position > 1;
             this.queryStateRef = new AtomicReference<QueryState>(QueryState.INITIAL);
             if (logger.isTraceEnabled())
                 logger.trace("[{}] Starting", id);
@@ -277,6 +291,16 @@ class RequestHandler {
             if (pool == null || pool.isClosed())
                 return false;
 
+            // Retries and speculative executions are extra load on the host, check if they are allowed
+            RequestThrottler throttler = pool.extraExecutionsThrottler;
+            if (throttler != null && (speculative || current != null) && !throttler.tryAcquire()) {
+                if (logger.isTraceEnabled())
+                    logger.trace("[{}] Throttled extra execution on node {}", id, host);
+                logError(host.getSocketAddress(), new DriverException(
+                        String.format("[%s] Retry or speculative execution was throttled", host.getAddress())));
+                return false;
+            }
+
             if (logger.isTraceEnabled())
                 logger.trace("[{}] Querying node {}", id, host);
 
@@ -0,0 +1,46 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket that limits the rate of requests to a host.
+ * <p/>
+ * This is implemented as a generic cell rate algorithm: instead of counting tokens, we track the time at which the
+ * bucket would be full again (the "theoretical arrival time"). Each permit pushes that time back by the emission
+ * interval, and a permit is refused if it would push it further than {@code burst} intervals in the future.
+ */
+class RequestThrottler {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    RequestThrottler(double permitsPerSecond, int burst) {
+        assert permitsPerSecond > 0 && burst > 0;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long now) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = (tat - now > 0) ? tat : now;
+            if (start - now > toleranceNanos)
+                return false;
+            if (theoreticalArrival.compareAndSet(tat, start + intervalNanos))
+                return true;
+        }
+    }
+}
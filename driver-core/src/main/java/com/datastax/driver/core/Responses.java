@@ -15,6 +15,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.datastax.driver.core.ProtocolVersion.V4;
 import static com.datastax.driver.core.SchemaElement.*;
@@ -250,6 +251,17 @@ class Responses {
             }
         };
 
+        /**
+         * Decodes a result, exposing the cells of rows that contain blobs as views over {@code body} (which is then
+         * retained) instead of copying them. See {@link QueryOptions#setZeroCopyBlobs(boolean)}.
+         */
+        static Result decodeRetainingBlobs(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry) {
+            Kind kind = Kind.fromId(body.readInt());
+            return kind == Kind.ROWS
+                    ? Rows.decode(body, version, codecRegistry, true)
+                    : kind.subDecoder.decode(body, version, codecRegistry);
+        }
+
         enum Kind {
             VOID(1, Void.subcodec),
             ROWS(2, Rows.subcodec),
@@ -465,41 +477,326 @@ class Responses {
             static final Message.Decoder<Result> subcodec = new Message.Decoder<Result>() {
                 @Override
                 public Result decode(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry) {
+                    return Rows.decode(body, version, codecRegistry, false);
+                }
+            };
+
+            static Rows decode(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry, boolean retainBlobs) {
+                return decode(body, version, codecRegistry, ENABLE_LAZY_ROWS, retainBlobs);
+            }
 
-                    Metadata metadata = Metadata.decode(body, version, codecRegistry);
+            static Rows decode(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry, boolean lazy, boolean retainBlobs) {
 
-                    int rowCount = body.readInt();
-                    int columnCount = metadata.columnCount;
+                Metadata metadata = Metadata.decode(body, version, codecRegistry);
 
-                    Queue<List<ByteBuffer>> data = new ArrayDeque<List<ByteBuffer>>(rowCount);
+                int rowCount = body.readInt();
+                int columnCount = metadata.columnCount;
+                int start = body.readerIndex();
+
+                Queue<List<ByteBuffer>> data;
+                if (rowCount == 0 || columnCount == 0) {
+                    data = new ArrayDeque<List<ByteBuffer>>(0);
+                } else if (retainBlobs && mayHaveBlobs(metadata)) {
+                    data = decodeLazyRows(body, rowCount, columnCount, true);
+                } else if (lazy) {
+                    data = decodeLazyRows(body, rowCount, columnCount, false);
+                } else {
+                    data = new ArrayDeque<List<ByteBuffer>>(rowCount);
                     for (int i = 0; i < rowCount; i++) {
                         List<ByteBuffer> row = new ArrayList<ByteBuffer>(columnCount);
                         for (int j = 0; j < columnCount; j++)
                             row.add(CBUtil.readValue(body));
                         data.add(row);
                     }
+                }
+
+                return new Rows(metadata, data, body.readerIndex() - start, version);
+            }
 
-                    return new Rows(metadata, data, version);
+            // The column types are unknown when the server skipped the metadata, in which case we must assume the worst
+            private static boolean mayHaveBlobs(Metadata metadata) {
+                if (metadata.columns == null)
+                    return true;
+                for (ColumnDefinitions.Definition column : metadata.columns) {
+                    if (column.getType().getName() == DataType.Name.BLOB)
+                        return true;
+                }
+                return false;
+            }
+
+            // Enables lazy decoding (one copy of the page, see decodeLazyRows). This is opt-in because the values of
+            // lazy rows are views over the page, so ByteBuffer.array() returns the whole page instead of the value.
+            private static final boolean ENABLE_LAZY_ROWS = SystemProperties.getBoolean("com.datastax.driver.ENABLE_LAZY_ROWS", false);
+
+            /**
+             * Copies all the rows of the page into a single array, and indexes the position of each cell, instead of
+             * copying each cell into its own buffer. Cells are only wrapped into a {@code ByteBuffer} when accessed.
+             * <p/>
+             * If {@code retain} is set, the rows are not copied: they are read from a retained slice of {@code body}
+             * instead.
+             */
+            private static Queue<List<ByteBuffer>> decodeLazyRows(ByteBuf body, int rowCount, int columnCount, boolean retain) {
+                int cellCount = rowCount * columnCount;
+                int[] offsets = new int[cellCount];
+                int start = body.readerIndex();
+                int position = start;
+                for (int i = 0; i < cellCount; i++) {
+                    offsets[i] = position - start;
+                    int length = body.getInt(position);
+                    position += 4 + Math.max(length, 0);
+                }
+
+                if (retain) {
+                    PageBuffer page = new PageBuffer(body.readSlice(position - start).retain());
+                    RetainedRows data = new RetainedRows(page, offsets, rowCount, columnCount);
+                    for (int i = 0; i < rowCount; i++)
+                        data.add(new BufferRow(page, offsets, i * columnCount, columnCount));
+                    return data;
+                }
+
+                byte[] page = new byte[position - start];
+                body.readBytes(page);
+                return lazyRows(page, offsets, rowCount, columnCount);
+            }
+
+            private static Queue<List<ByteBuffer>> lazyRows(byte[] page, int[] offsets, int rowCount, int columnCount) {
+                Queue<List<ByteBuffer>> data = new ArrayDeque<List<ByteBuffer>>(rowCount);
+                for (int i = 0; i < rowCount; i++)
+                    data.add(new LazyRow(page, offsets, i * columnCount, columnCount));
+                return data;
+            }
+
+            /**
+             * Whether the given rows were decoded with {@link QueryOptions#setZeroCopyBlobs(boolean) zero-copy blobs},
+             * and must therefore be released.
+             */
+            static boolean isRetained(Queue<List<ByteBuffer>> data) {
+                return data instanceof RetainedRows;
+            }
+
+            /**
+             * Releases the response buffer that the given rows were read from, if they were decoded with
+             * {@link QueryOptions#setZeroCopyBlobs(boolean) zero-copy blobs}. Their values can't be accessed anymore
+             * afterwards.
+             */
+            static void release(Queue<List<ByteBuffer>> data) {
+                if (data instanceof RetainedRows)
+                    ((RetainedRows) data).page.release();
+            }
+
+            /**
+             * The values of a row, as views over the page it was decoded from.
+             * <p/>
+             * Note that each row and each value references the whole page, so retaining a single row or value retains
+             * the memory of the entire page. Also, the backing array of a value is the page, not a copy of the value.
+             */
+            static class LazyRow extends AbstractList<ByteBuffer> implements RandomAccess {
+                private final byte[] page;
+                private final int[] offsets;
+                private final int firstCell;
+                private final int size;
+
+                LazyRow(byte[] page, int[] offsets, int firstCell, int size) {
+                    this.page = page;
+                    this.offsets = offsets;
+                    this.firstCell = firstCell;
+                    this.size = size;
+                }
+
+                @Override
+                public ByteBuffer get(int i) {
+                    if (i < 0 || i >= size)
+                        throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", i, size));
+                    int offset = offsets[firstCell + i];
+                    int length = ((page[offset] & 0xFF) << 24)
+                            | ((page[offset + 1] & 0xFF) << 16)
+                            | ((page[offset + 2] & 0xFF) << 8)
+                            | (page[offset + 3] & 0xFF);
+                    return length < 0 ? null : ByteBuffer.wrap(page, offset + 4, length).slice();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            }
+
+            /**
+             * The values of a row, as read-only views over the response buffer it was decoded from.
+             */
+            static class BufferRow extends AbstractList<ByteBuffer> implements RandomAccess {
+                private final PageBuffer page;
+                private final int[] offsets;
+                private final int firstCell;
+                private final int size;
+
+                BufferRow(PageBuffer page, int[] offsets, int firstCell, int size) {
+                    this.page = page;
+                    this.offsets = offsets;
+                    this.firstCell = firstCell;
+                    this.size = size;
+                }
+
+                @Override
+                public ByteBuffer get(int i) {
+                    if (i < 0 || i >= size)
+                        throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", i, size));
+                    return page.get(offsets[firstCell + i]);
                 }
-            };
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            }
+
+            /**
+             * The rows of a page decoded with zero-copy blobs, which keep track of the page they were read from.
+             */
+            static class RetainedRows extends ArrayDeque<List<ByteBuffer>> {
+                final PageBuffer page;
+                private final int[] offsets;
+                private final int rowCount;
+                private final int columnCount;
+
+                RetainedRows(PageBuffer page, int[] offsets, int rowCount, int columnCount) {
+                    super(rowCount);
+                    this.page = page;
+                    this.offsets = offsets;
+                    this.rowCount = rowCount;
+                    this.columnCount = columnCount;
+                }
+
+                /**
+                 * Returns the same rows, copied out of the page like regular rows would be.
+                 */
+                Queue<List<ByteBuffer>> copy() {
+                    if (ENABLE_LAZY_ROWS)
+                        return lazyRows(page.copy(), offsets, rowCount, columnCount);
+                    Queue<List<ByteBuffer>> data = new ArrayDeque<List<ByteBuffer>>(rowCount);
+                    for (int i = 0; i < rowCount; i++) {
+                        List<ByteBuffer> row = new ArrayList<ByteBuffer>(columnCount);
+                        for (int j = 0; j < columnCount; j++)
+                            row.add(page.copyValue(offsets[i * columnCount + j]));
+                        data.add(row);
+                    }
+                    return data;
+                }
+            }
+
+            /**
+             * A retained slice of a response buffer, that holds the rows of a page.
+             * <p/>
+             * The slice is only released explicitly: the views returned by {@link #get(int)} do not reference this
+             * object, so there is no way to tell when they become unreachable.
+             */
+            static class PageBuffer {
+                private final ByteBuf buffer;
+                private final AtomicBoolean released = new AtomicBoolean();
+
+                PageBuffer(ByteBuf buffer) {
+                    this.buffer = buffer;
+                }
+
+                /**
+                 * Returns a read-only view of the value at {@code offset}, or {@code null} if it is null.
+                 *
+                 * @throws IllegalStateException if the page was released.
+                 */
+                ByteBuffer get(int offset) {
+                    checkNotReleased();
+                    int length = buffer.getInt(offset);
+                    return length < 0 ? null : buffer.nioBuffer(offset + 4, length).asReadOnlyBuffer();
+                }
+
+                /**
+                 * Returns a copy of the value at {@code offset}, or {@code null} if it is null.
+                 */
+                ByteBuffer copyValue(int offset) {
+                    checkNotReleased();
+                    int length = buffer.getInt(offset);
+                    if (length < 0)
+                        return null;
+                    byte[] copy = new byte[length];
+                    buffer.getBytes(offset + 4, copy);
+                    return ByteBuffer.wrap(copy);
+                }
+
+                byte[] copy() {
+                    checkNotReleased();
+                    byte[] copy = new byte[buffer.readableBytes()];
+                    buffer.getBytes(buffer.readerIndex(), copy);
+                    return copy;
+                }
+
+                void release() {
+                    if (released.compareAndSet(false, true))
+                        buffer.release();
+                }
+
+                boolean isReleased() {
+                    return released.get();
+                }
+
+                private void checkNotReleased() {
+                    if (released.get())
+                        throw new IllegalStateException("Cannot access the values of a row after its result set was released");
+                }
+            }
 
             final Metadata metadata;
             final Queue<List<ByteBuffer>> data;
+            // The size of the encoded rows in the response body, in bytes (excluding metadata)
+            final int dataSize;
             private final ProtocolVersion version;
+            // Whether a consumer took ownership of the rows (only relevant if they were decoded with zero-copy blobs)
+            private volatile boolean claimed;
 
             private volatile Queue<List<ByteBuffer>> rows;
 
-            private Rows(Metadata metadata, Queue<List<ByteBuffer>> data, ProtocolVersion version) {
+            private Rows(Metadata metadata, Queue<List<ByteBuffer>> data, int dataSize, ProtocolVersion version) {
                 super(Kind.ROWS);
                 this.metadata = metadata;
                 this.data = data;
+                this.dataSize = dataSize;
                 this.version = version;
             }
 
+            /**
+             * Returns the rows of this page, for a consumer that keeps them once the response has been dispatched.
+             * <p/>
+             * If the rows were decoded with {@link QueryOptions#setZeroCopyBlobs(boolean) zero-copy blobs}, they are
+             * views over the response buffer: if {@code takeOwnership} is set, the caller becomes responsible for
+             * {@link #release(Queue) releasing} them; otherwise, they are copied, and the buffer is released once the
+             * response has been dispatched (see {@link #releaseUnclaimed()}).
+             */
+            Queue<List<ByteBuffer>> takeData(boolean takeOwnership) {
+                if (!(data instanceof RetainedRows))
+                    return data;
+                if (takeOwnership) {
+                    claimed = true;
+                    return data;
+                }
+                return ((RetainedRows) data).copy();
+            }
+
+            /**
+             * Releases the response buffer that the rows were read from, unless a consumer took ownership of it.
+             * This must be called once the response has been dispatched.
+             */
+            void releaseUnclaimed() {
+                if (!claimed)
+                    release(data);
+            }
+
             @Override
             public String toString() {
                 StringBuilder sb = new StringBuilder();
                 sb.append("ROWS ").append(metadata).append('\n');
+                if (data instanceof RetainedRows && ((RetainedRows) data).page.isReleased()) {
+                    sb.append(" (released)\n---");
+                    return sb.toString();
+                }
                 int rowNumber = 0;
                 for (List<ByteBuffer> row : data) {
                     if (++rowNumber > 5) {
@@ -63,4 +63,18 @@ public interface ResultSet extends PagingIterable<ResultSet, Row> {
      * @see <a href="https://issues.apache.org/jira/browse/CASSANDRA-7337">CASSANDRA-7337</a>
      */
     public boolean wasApplied();
+
+    /**
+     * Releases the network buffers that hold the rows of this ResultSet, if they were read with
+     * {@link QueryOptions#setZeroCopyBlobs(boolean) zero-copy blobs} (which requires its statement to
+     * {@link Statement#setZeroCopyBlobs(boolean) opt in}). Otherwise, this method does nothing.
+     * <p/>
+     * With zero-copy blobs, the rows of a ResultSet and the values obtained from them are views over buffers that
+     * are shared by all connections, and that are only released by this method: it must be called once they are not
+     * used anymore, otherwise the buffers leak. Afterwards, the rows of this ResultSet (including the ones that were
+     * already returned) throw an {@code IllegalStateException} when their values are accessed, and the values that
+     * were obtained from them <b>must not be used anymore</b>, since their memory can be reused for other
+     * responses. Pages that are received after this method was called are released right away.
+     */
+    public void release();
 }
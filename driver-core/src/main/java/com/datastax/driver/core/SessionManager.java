@@ -7,6 +7,7 @@
 package com.datastax.driver.core;
 
 import com.datastax.driver.core.Message.Response;
+import com.datastax.driver.core.exceptions.BusySessionException;
 import com.datastax.driver.core.exceptions.DriverInternalError;
 import com.datastax.driver.core.exceptions.InvalidQueryException;
 import com.datastax.driver.core.exceptions.UnsupportedFeatureException;
@@ -30,6 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -44,6 +46,10 @@ class SessionManager extends AbstractSession {
     final HostConnectionPool.PoolState poolsState;
     private final AtomicReference<ListenableFuture<Session>> initFuture = new AtomicReference<ListenableFuture<Session>>();
     final AtomicReference<CloseFuture> closeFuture = new AtomicReference<CloseFuture>();
+    // The size of the pages buffered by all continuous paging queries of this session
+    final AtomicLong continuousPagingQueuedBytes = new AtomicLong();
+    // null if admission control is disabled
+    final AdmissionController admissionController;
 
     private volatile boolean isInit;
     private volatile boolean isClosing;
@@ -53,6 +59,8 @@ class SessionManager extends AbstractSession {
         this.cluster = cluster;
         this.pools = new ConcurrentHashMap<Host, HostConnectionPool>();
         this.poolsState = new HostConnectionPool.PoolState();
+        int maxRequestsPerSession = cluster.manager.configuration.getPoolingOptions().getMaxRequestsPerSession();
+        this.admissionController = maxRequestsPerSession > 0 ? new AdmissionController(maxRequestsPerSession) : null;
     }
 
     @Override
@@ -121,7 +129,7 @@ class SessionManager extends AbstractSession {
     public ResultSetFuture executeAsync(final Statement statement) {
         if (isInit) {
             DefaultResultSetFuture future = new DefaultResultSetFuture(this, cluster.manager.protocolVersion(), makeRequestMessage(statement, null));
-            new RequestHandler(this, future, statement).sendRequest();
+            executeAdmitted(future, statement);
             return future;
         } else {
             // If the session is not initialized, we can't call makeRequestMessage() synchronously, because it
@@ -132,7 +140,7 @@ class SessionManager extends AbstractSession {
                 @Override
                 public void run() {
                     DefaultResultSetFuture actualFuture = new DefaultResultSetFuture(SessionManager.this, cluster.manager.protocolVersion(), makeRequestMessage(statement, null));
-                    execute(actualFuture, statement);
+                    executeAdmitted(actualFuture, statement);
                     chainedFuture.setSource(actualFuture);
                 }
             }, executor());
@@ -156,14 +164,14 @@ class SessionManager extends AbstractSession {
         }
         final SettableFuture<AsyncContinuousPagingResult> result = SettableFuture.create();
         if (isInit) {
-            ContinuousPagingQueue queue = new ContinuousPagingQueue(makeRequestMessage(statement, null, options), result);
+            ContinuousPagingQueue queue = new ContinuousPagingQueue(makeRequestMessage(statement, null, options), options, result);
             MultiResponseRequestHandler handler = new MultiResponseRequestHandler(this, queue, statement);
             handler.sendRequest();
         } else {
             this.initAsync().addListener(new Runnable() {
                 @Override
                 public void run() {
-                    ContinuousPagingQueue queue = new ContinuousPagingQueue(makeRequestMessage(statement, null, options), result);
+                    ContinuousPagingQueue queue = new ContinuousPagingQueue(makeRequestMessage(statement, null, options), options, result);
                     MultiResponseRequestHandler handler = new MultiResponseRequestHandler(SessionManager.this, queue, statement);
                     handler.sendRequest();
                 }
@@ -616,7 +624,7 @@ class SessionManager extends AbstractSession {
             if (protocolVersion.compareTo(ProtocolVersion.V4) < 0)
                 bs.ensureAllSet();
             boolean skipMetadata = protocolVersion != ProtocolVersion.V1 && bs.statement.getPreparedId().resultSetMetadata != null;
-            Requests.QueryProtocolOptions options = new Requests.QueryProtocolOptions(Message.Request.Type.EXECUTE, consistency, Arrays.asList(bs.wrapper.values), Collections.<String, ByteBuffer>emptyMap(),
+            Requests.QueryProtocolOptions options = new Requests.QueryProtocolOptions(Message.Request.Type.EXECUTE, consistency, bs.wrapper.encodableValues(), Collections.<String, ByteBuffer>emptyMap(),
                     skipMetadata, fetchSize, usedPagingState, serialConsistency, defaultTimestamp, continuousPagingOptions);
             request = new Requests.Execute(bs.statement.getPreparedId().id, options, statement.isTracing());
         } else {
@@ -656,6 +664,16 @@ class SessionManager extends AbstractSession {
             }, executor());
     }
 
+    // Executes a client request, if admission control is disabled or the request is under the session's limit.
+    private void executeAdmitted(DefaultResultSetFuture future, Statement statement) {
+        AdmissionController controller = admissionController;
+        if (controller != null && !controller.tryAcquire()) {
+            future.onException(null, new BusySessionException(controller.getLimit()), 0, 0);
+            return;
+        }
+        new RequestHandler(this, future, statement, controller).sendRequest();
+    }
+
     private ListenableFuture<PreparedStatement> prepare(final PreparedStatement statement, InetSocketAddress toExclude) {
         final String query = statement.getQueryString();
         List<ListenableFuture<Response>> futures = Lists.newArrayListWithExpectedSize(pools.size());
@@ -742,7 +760,7 @@ class SessionManager extends AbstractSession {
                 }
 
                 openConnections[i] = p.opened();
-                inFlightQueries[i] = p.totalInFlight.get();
+                inFlightQueries[i] = p.totalInFlight();
                 trashedConnections[i] = p.trashed();
                 i++;
             }
@@ -6,6 +6,8 @@
  */
 package com.datastax.driver.core;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Options to configure low-level socket options for the connections kept
  * to the Cassandra hosts.
@@ -39,6 +41,7 @@ public class SocketOptions {
     private volatile Boolean tcpNoDelay = Boolean.TRUE;
     private volatile Integer receiveBufferSize;
     private volatile Integer sendBufferSize;
+    private volatile FlushPolicy flushPolicy = ImmediateFlushPolicy.INSTANCE;
 
     /**
      * Creates a new {@code SocketOptions} instance with default values.
@@ -272,4 +275,33 @@ public class SocketOptions {
         this.sendBufferSize = sendBufferSize;
         return this;
     }
+
+    /**
+     * Returns the policy that decides when requests written to a connection get flushed to the socket.
+     *
+     * @return the flush policy.
+     * @see #setFlushPolicy(FlushPolicy)
+     */
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    /**
+     * Sets the policy that decides when requests written to a connection get flushed to the socket.
+     * <p/>
+     * By default, the driver uses {@link ImmediateFlushPolicy}. Use {@link CoalescingFlushPolicy} to trade a few
+     * microseconds of latency for fewer write system calls under high throughput.
+     * <p/>
+     * Note that this has no effect if coalescing has been disabled altogether with the
+     * {@code com.datastax.driver.DISABLE_COALESCING} system property.
+     *
+     * @param flushPolicy the new policy. Cannot be {@code null}.
+     * @return this {@code SocketOptions}.
+     * @throws java.lang.NullPointerException if the policy is null
+     */
+    public SocketOptions setFlushPolicy(FlushPolicy flushPolicy) {
+        Preconditions.checkNotNull(flushPolicy);
+        this.flushPolicy = flushPolicy;
+        return this;
+    }
 }
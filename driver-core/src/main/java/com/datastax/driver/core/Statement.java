@@ -60,6 +60,8 @@ public abstract class Statement {
     private volatile int fetchSize;
     private volatile long defaultTimestamp = Long.MIN_VALUE;
     private volatile int readTimeoutMillis = Integer.MIN_VALUE;
+    private volatile double prefetchThreshold = -1;
+    private volatile boolean zeroCopyBlobs;
     private volatile RetryPolicy retryPolicy;
     private volatile ByteBuffer pagingState;
     protected volatile Boolean idempotent;
@@ -364,6 +366,60 @@ public abstract class Statement {
         return readTimeoutMillis;
     }
 
+    /**
+     * Overrides the default prefetch threshold ({@link QueryOptions#getPrefetchThreshold()}) for this statement.
+     * <p/>
+     * Once this fraction of a page has been consumed, the driver automatically starts fetching the next page in the
+     * background. See {@link QueryOptions#setPrefetchThreshold(double)} for more details.
+     *
+     * @param prefetchThreshold the threshold to set, between 0 and 1. A value of 1 disables automatic prefetching
+     *                          for this statement.
+     * @return this {@code Statement} object.
+     * @throws IllegalArgumentException if {@code prefetchThreshold} is not between 0 and 1.
+     */
+    public Statement setPrefetchThreshold(double prefetchThreshold) {
+        Preconditions.checkArgument(prefetchThreshold >= 0 && prefetchThreshold <= 1,
+                "prefetch threshold must be between 0 and 1 (was %s)", prefetchThreshold);
+        this.prefetchThreshold = prefetchThreshold;
+        return this;
+    }
+
+    /**
+     * Return the prefetch threshold that was set for this statement.
+     *
+     * @return the threshold. Note that a negative value means that the default
+     * {@link QueryOptions#getPrefetchThreshold()} will be used.
+     */
+    public double getPrefetchThreshold() {
+        return prefetchThreshold;
+    }
+
+    /**
+     * Sets whether the {@link ResultSet} of this statement should expose its blobs without copying them, if
+     * {@link QueryOptions#setZeroCopyBlobs(boolean) zero-copy blobs} are enabled.
+     * <p/>
+     * If this is set, the {@link ResultSet} takes ownership of the network buffers that its rows were read from, and
+     * <b>{@link ResultSet#release()} must be called</b> once its rows and the values obtained from them are not used
+     * anymore. Otherwise, or if zero-copy blobs are disabled, rows are copied out of the network buffers as usual.
+     *
+     * @param zeroCopyBlobs whether the result set of this statement should expose its blobs without copying them.
+     * @return this {@code Statement} object.
+     */
+    public Statement setZeroCopyBlobs(boolean zeroCopyBlobs) {
+        this.zeroCopyBlobs = zeroCopyBlobs;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link ResultSet} of this statement exposes its blobs without copying them.
+     *
+     * @return the value.
+     * @see #setZeroCopyBlobs(boolean)
+     */
+    public boolean isZeroCopyBlobs() {
+        return zeroCopyBlobs;
+    }
+
     /**
      * Sets the paging state.
      * <p/>
@@ -147,6 +147,26 @@ public abstract class StatementWrapper extends Statement {
         return wrapped.setReadTimeoutMillis(readTimeoutMillis);
     }
 
+    @Override
+    public Statement setPrefetchThreshold(double prefetchThreshold) {
+        return wrapped.setPrefetchThreshold(prefetchThreshold);
+    }
+
+    @Override
+    public double getPrefetchThreshold() {
+        return wrapped.getPrefetchThreshold();
+    }
+
+    @Override
+    public Statement setZeroCopyBlobs(boolean zeroCopyBlobs) {
+        return wrapped.setZeroCopyBlobs(zeroCopyBlobs);
+    }
+
+    @Override
+    public boolean isZeroCopyBlobs() {
+        return wrapped.isZeroCopyBlobs();
+    }
+
     @Override
     public int getReadTimeoutMillis() {
         return wrapped.getReadTimeoutMillis();
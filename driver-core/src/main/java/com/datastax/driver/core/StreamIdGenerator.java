@@ -19,15 +19,27 @@ import java.util.concurrent.atomic.AtomicLongArray;
  * Implementation notes: we use an atomic long array where each bit represents an id. It is set to 1 if
  * the id is available, 0 otherwise. When looking for an id, we find a long that has remaining 1's and
  * pick the rightmost one.
- * To minimize the average time to find that long, we search the array in a round-robin fashion.
+ * Subclasses differ in where they start searching the array:
+ * <ul>
+ * <li>{@link RoundRobin} searches the array in a round-robin fashion, to minimize the average time to find a
+ * long with available ids. This is well suited to small arrays (protocol v2 and below).</li>
+ * <li>{@link Striped} gives each thread its own starting point, so that concurrent callers rarely compete for the same
+ * long, and don't compete at all for a shared offset. This is well suited to large arrays (protocol v3 and above).</li>
+ * </ul>
  */
-class StreamIdGenerator {
+abstract class StreamIdGenerator {
     static final int MAX_STREAM_PER_CONNECTION_V2 = 128;
     static final int MAX_STREAM_PER_CONNECTION_V3 = 32768;
     private static final long MAX_UNSIGNED_LONG = -1L;
 
+    // Allows reverting to the round-robin implementation for all protocol versions
+    private static final boolean DISABLE_STRIPED_STREAM_IDS = SystemProperties.getBoolean("com.datastax.driver.DISABLE_STRIPED_STREAM_IDS", false);
+
     static StreamIdGenerator newInstance(ProtocolVersion version) {
-        return new StreamIdGenerator(streamIdSizeFor(version));
+        int streamIdSizeInBytes = streamIdSizeFor(version);
+        return (streamIdSizeInBytes == 1 || DISABLE_STRIPED_STREAM_IDS)
+                ? new RoundRobin(streamIdSizeInBytes)
+                : new Striped(streamIdSizeInBytes, Runtime.getRuntime().availableProcessors());
     }
 
     private static int streamIdSizeFor(ProtocolVersion version) {
@@ -45,9 +57,8 @@ class StreamIdGenerator {
         }
     }
 
-    private final AtomicLongArray bits;
+    final AtomicLongArray bits;
     private final int maxIds;
-    private final AtomicInteger offset;
 
     // If a query timeout, we'll stop waiting for it. However in that case, we
     // can't release/reuse the ID because we don't know if the response is lost
@@ -70,29 +81,17 @@ class StreamIdGenerator {
         // Initialize all bits to 1
         for (int i = 0; i < bits.length(); i++)
             bits.set(i, MAX_UNSIGNED_LONG);
-
-        offset = new AtomicInteger(bits.length() - 1);
     }
 
-    public int next() {
-        int previousOffset, myOffset;
-        do {
-            previousOffset = offset.get();
-            myOffset = (previousOffset + 1) % bits.length();
-        } while (!offset.compareAndSet(previousOffset, myOffset));
-
-        for (int i = 0; i < bits.length(); i++) {
-            int j = (i + myOffset) % bits.length();
-
-            int id = atomicGetAndSetFirstAvailable(j);
-            if (id >= 0)
-                return id + (64 * j);
-        }
-        return -1;
-    }
+    /**
+     * Borrows an id.
+     *
+     * @return the id, or -1 if no id is available.
+     */
+    public abstract int next();
 
     public void release(int streamId) {
-        atomicClear(streamId / 64, streamId % 64);
+        atomicClear(streamId >>> 6, streamId & 63);
     }
 
     public void mark(int streamId) {
@@ -103,12 +102,19 @@ class StreamIdGenerator {
         marked.decrementAndGet();
     }
 
+    /**
+     * @return the total number of ids managed by this generator (ids range from 0 to this value, excluded).
+     */
+    int maxIds() {
+        return maxIds;
+    }
+
     public int maxAvailableStreams() {
         return maxIds - marked.get();
     }
 
     // Returns >= 0 if found and set an id, -1 if no bits are available.
-    private int atomicGetAndSetFirstAvailable(int idx) {
+    int atomicGetAndSetFirstAvailable(int idx) {
         while (true) {
             long l = bits.get(idx);
             if (l == 0)
@@ -132,4 +138,84 @@ class StreamIdGenerator {
     private static long mask(int id) {
         return 1L << id;
     }
+
+    /**
+     * Starts each search one long after the previous one, using a shared offset.
+     */
+    static class RoundRobin extends StreamIdGenerator {
+
+        private final AtomicInteger offset;
+
+        RoundRobin(int streamIdSizeInBytes) {
+            super(streamIdSizeInBytes);
+            offset = new AtomicInteger(bits.length() - 1);
+        }
+
+        @Override
+        public int next() {
+            int previousOffset, myOffset;
+            do {
+                previousOffset = offset.get();
+                myOffset = (previousOffset + 1) % bits.length();
+            } while (!offset.compareAndSet(previousOffset, myOffset));
+
+            for (int i = 0; i < bits.length(); i++) {
+                int j = (i + myOffset) % bits.length();
+
+                int id = atomicGetAndSetFirstAvailable(j);
+                if (id >= 0)
+                    return id + (64 * j);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Splits the array into stripes, and assigns each thread to a stripe based on its id. Each stripe remembers the
+     * last long where an id was found, and subsequent searches from that stripe start there.
+     * <p/>
+     * The stripe cursors are plain (non-volatile) ints: they are only hints, so a stale or lost update merely makes
+     * a search start a bit further from an available id. They are spaced out to avoid false sharing between stripes.
+     */
+    static class Striped extends StreamIdGenerator {
+
+        // 16 ints = 64 bytes, the typical size of a cache line
+        private static final int CURSOR_PADDING = 16;
+
+        private final int mask;
+        private final int stripeMask;
+        private final int[] cursors;
+
+        Striped(int streamIdSizeInBytes, int concurrency) {
+            super(streamIdSizeInBytes);
+            int length = bits.length();
+            // The array length is always a power of two (see the constructor of the parent class)
+            assert Integer.bitCount(length) == 1;
+            this.mask = length - 1;
+
+            int stripes = Math.min(length, Integer.highestOneBit(Math.max(concurrency, 1) * 2 - 1));
+            this.stripeMask = stripes - 1;
+            this.cursors = new int[stripes * CURSOR_PADDING];
+            int stripeLength = length / stripes;
+            for (int i = 0; i < stripes; i++)
+                cursors[i * CURSOR_PADDING] = i * stripeLength;
+        }
+
+        @Override
+        public int next() {
+            int cursorIndex = ((int) Thread.currentThread().getId() & stripeMask) * CURSOR_PADDING;
+            int start = cursors[cursorIndex];
+            for (int i = 0; i <= mask; i++) {
+                int j = (start + i) & mask;
+
+                int id = atomicGetAndSetFirstAvailable(j);
+                if (id >= 0) {
+                    if (j != start)
+                        cursors[cursorIndex] = j;
+                    return id + (j << 6);
+                }
+            }
+            return -1;
+        }
+    }
 }
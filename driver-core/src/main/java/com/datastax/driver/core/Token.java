@@ -262,8 +262,12 @@ public abstract class Token implements Comparable<Token> {
 
             @Override
             M3PToken hash(ByteBuffer partitionKey) {
+                return new M3PToken(hashToLong(partitionKey));
+            }
+
+            long hashToLong(ByteBuffer partitionKey) {
                 long v = murmur(partitionKey);
-                return new M3PToken(v == Long.MIN_VALUE ? Long.MAX_VALUE : v);
+                return v == Long.MIN_VALUE ? Long.MAX_VALUE : v;
             }
 
             @Override
@@ -293,6 +297,18 @@ public abstract class Token implements Comparable<Token> {
             this.value = value;
         }
 
+        /**
+         * Returns the value of the token that {@link Factory#hash(ByteBuffer)} would return for this partition key,
+         * without allocating the token.
+         */
+        static long hashToLong(ByteBuffer partitionKey) {
+            return ((M3PTokenFactory) FACTORY).hashToLong(partitionKey);
+        }
+
+        long longValue() {
+            return value;
+        }
+
         @Override
         public DataType getType() {
             return FACTORY.getTokenType();
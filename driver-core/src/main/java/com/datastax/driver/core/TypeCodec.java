@@ -477,6 +477,39 @@ public abstract class TypeCodec<T> {
      */
     public abstract ByteBuffer serialize(T value, ProtocolVersion protocolVersion) throws InvalidTypeException;
 
+    /**
+     * Return the size of the serialized form of the given non-null value, if it can be computed without serializing
+     * it.
+     * <p/>
+     * Codecs for composite types use this to serialize their elements directly into the buffer of the enclosing
+     * value, with {@link #encode(Object, ByteBuffer, ProtocolVersion)}, instead of serializing each of them into
+     * its own buffer first.
+     *
+     * @param value           An instance of T; never {@code null}.
+     * @param protocolVersion the protocol version to use.
+     * @return the size of the serialized form of {@code value}, or -1 if it is unknown, in which case the value must
+     * be serialized with {@link #serialize(Object, ProtocolVersion)}.
+     * @throws ClassCastException if the given value does not have the expected type
+     */
+    int encodedSize(T value, ProtocolVersion protocolVersion) {
+        return -1;
+    }
+
+    /**
+     * Write the serialized form of the given non-null value at the current position of {@code output}.
+     * <p/>
+     * This is only called if {@link #encodedSize(Object, ProtocolVersion)} returned a positive size for the value,
+     * and must write exactly that many bytes.
+     *
+     * @param value           An instance of T; never {@code null}.
+     * @param output          the buffer to write to.
+     * @param protocolVersion the protocol version to use.
+     * @throws ClassCastException if the given value does not have the expected type
+     */
+    void encode(T value, ByteBuffer output, ProtocolVersion protocolVersion) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support encoding values in place");
+    }
+
     /**
      * Deserialize the given {@link ByteBuffer} instance according to the CQL type
      * handled by this codec.
@@ -953,6 +986,16 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        int encodedSize(Long value, ProtocolVersion protocolVersion) {
+            return 8;
+        }
+
+        @Override
+        void encode(Long value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            output.putLong(value);
+        }
+
         @Override
         public long deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1201,6 +1244,16 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        int encodedSize(Double value, ProtocolVersion protocolVersion) {
+            return 8;
+        }
+
+        @Override
+        void encode(Double value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            output.putDouble(value);
+        }
+
         @Override
         public double deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1246,6 +1299,16 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        int encodedSize(Float value, ProtocolVersion protocolVersion) {
+            return 4;
+        }
+
+        @Override
+        void encode(Float value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            output.putFloat(value);
+        }
+
         @Override
         public float deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1431,6 +1494,16 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        int encodedSize(Integer value, ProtocolVersion protocolVersion) {
+            return 4;
+        }
+
+        @Override
+        void encode(Integer value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            output.putInt(value);
+        }
+
         @Override
         public int deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1741,33 +1814,85 @@ public abstract class TypeCodec<T> {
 
         protected final TypeCodec<E> eltCodec;
 
+        // non-null if elements are fixed-size numbers that can be read and written without intermediary buffers
+        final PrimitiveCollections.Kind eltKind;
+
         protected AbstractCollectionCodec(CollectionType cqlType, TypeToken<C> javaType, TypeCodec<E> eltCodec) {
             super(cqlType, javaType);
             checkArgument(cqlType.getName() == Name.LIST || cqlType.getName() == Name.SET, "Expecting list or set type, got %s", cqlType);
             this.eltCodec = eltCodec;
+            this.eltKind = PrimitiveCollections.Kind.of(eltCodec);
         }
 
         @Override
         public ByteBuffer serialize(C value, ProtocolVersion protocolVersion) {
             if (value == null)
                 return null;
-            int i = 0;
-            ByteBuffer[] bbs = new ByteBuffer[value.size()];
-            for (E elt : value) {
-                if (elt == null) {
-                    throw new NullPointerException("Collection elements cannot be null");
+            int size = encodedSize(value, protocolVersion);
+            if (size < 0) {
+                // size the result first, only serializing the elements whose size is not known in advance
+                int n = value.size();
+                size = CodecUtils.sizeOfCollectionSize(protocolVersion);
+                ByteBuffer[] bbs = null;
+                int i = 0;
+                for (E elt : value) {
+                    if (elt == null) {
+                        throw new NullPointerException("Collection elements cannot be null");
+                    }
+                    try {
+                        int eltSize = eltCodec.encodedSize(elt, protocolVersion);
+                        if (eltSize < 0) {
+                            if (bbs == null)
+                                bbs = new ByteBuffer[n];
+                            bbs[i] = eltCodec.serialize(elt, protocolVersion);
+                            size += CodecUtils.sizeOfValue(bbs[i], protocolVersion);
+                        } else {
+                            size += CodecUtils.sizeOfValue(eltSize, protocolVersion);
+                        }
+                    } catch (ClassCastException e) {
+                        throw new InvalidTypeException(
+                                String.format("Invalid type for %s element, expecting %s but got %s",
+                                        cqlType, eltCodec.getJavaType(), elt.getClass()), e);
+                    }
+                    i++;
                 }
-                ByteBuffer bb;
-                try {
-                    bb = eltCodec.serialize(elt, protocolVersion);
-                } catch (ClassCastException e) {
-                    throw new InvalidTypeException(
-                            String.format("Invalid type for %s element, expecting %s but got %s",
-                                    cqlType, eltCodec.getJavaType(), elt.getClass()), e);
+                ByteBuffer output = ByteBuffer.allocate(size);
+                CodecUtils.writeSize(output, n, protocolVersion);
+                i = 0;
+                for (E elt : value)
+                    CodecUtils.writeElement(output, eltCodec, elt, bbs, i++, protocolVersion);
+                return (ByteBuffer) output.flip();
+            }
+            ByteBuffer output = ByteBuffer.allocate(size);
+            encode(value, output, protocolVersion);
+            return (ByteBuffer) output.flip();
+        }
+
+        @Override
+        int encodedSize(C value, ProtocolVersion protocolVersion) {
+            if (eltKind == null)
+                return -1;
+            return CodecUtils.sizeOfCollectionSize(protocolVersion)
+                    + PrimitiveCollections.sizeOfElements(eltKind, value.size(), protocolVersion);
+        }
+
+        @Override
+        void encode(C value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            CodecUtils.writeSize(output, value.size(), protocolVersion);
+            if (!PrimitiveCollections.writeList(output, eltKind, value, protocolVersion)) {
+                for (E elt : value) {
+                    if (elt == null) {
+                        throw new NullPointerException("Collection elements cannot be null");
+                    }
+                    try {
+                        PrimitiveCollections.writeElement(output, eltKind, elt, protocolVersion);
+                    } catch (ClassCastException e) {
+                        throw new InvalidTypeException(
+                                String.format("Invalid type for %s element, expecting %s but got %s",
+                                        cqlType, eltCodec.getJavaType(), elt.getClass()), e);
+                    }
                 }
-                bbs[i++] = bb;
             }
-            return CodecUtils.pack(bbs, value.size(), protocolVersion);
         }
 
         @Override
@@ -1777,6 +1902,13 @@ public abstract class TypeCodec<T> {
             try {
                 ByteBuffer input = bytes.duplicate();
                 int size = CodecUtils.readSize(input, protocolVersion);
+                if (eltKind != null) {
+                    C coll = deserializePrimitives(input, size, protocolVersion);
+                    if (coll != null)
+                        return coll;
+                    input = bytes.duplicate();
+                    CodecUtils.readSize(input, protocolVersion);
+                }
                 C coll = newInstance(size);
                 for (int i = 0; i < size; i++) {
                     ByteBuffer databb = CodecUtils.readValue(input, protocolVersion);
@@ -1788,6 +1920,18 @@ public abstract class TypeCodec<T> {
             }
         }
 
+        /**
+         * Reads {@code size} fixed-size numeric elements from {@code input}, or returns {@code null} if they must be
+         * read by the generic path.
+         */
+        @SuppressWarnings("unchecked")
+        C deserializePrimitives(ByteBuffer input, int size, ProtocolVersion protocolVersion) {
+            C coll = newInstance(size);
+            for (int i = 0; i < size; i++)
+                coll.add((E) PrimitiveCollections.readElement(input, eltKind, eltCodec, protocolVersion));
+            return coll;
+        }
+
         @Override
         public String format(C value) {
             if (value == null)
@@ -1884,7 +2028,10 @@ public abstract class TypeCodec<T> {
 
     /**
      * This codec maps a CQL {@link DataType#list(DataType) list type} to a Java {@link List}.
-     * Implementation note: this codec returns mutable, non thread-safe {@link ArrayList} instances.
+     * Implementation note: this codec returns mutable, non thread-safe {@link ArrayList} instances,
+     * except for lists of {@code int}, {@code bigint}, {@code float} and {@code double}, that are
+     * returned as equally mutable and non thread-safe lists backed by a primitive array (these lists are
+     * serialized as {@link ArrayList} instances).
      */
     private static class ListCodec<T> extends AbstractCollectionCodec<T, List<T>> {
 
@@ -1897,11 +2044,19 @@ public abstract class TypeCodec<T> {
             return new ArrayList<T>(size);
         }
 
+        @Override
+        @SuppressWarnings("unchecked")
+        List<T> deserializePrimitives(ByteBuffer input, int size, ProtocolVersion protocolVersion) {
+            return (List<T>) PrimitiveCollections.readList(input, eltKind, size, protocolVersion);
+        }
+
     }
 
     /**
      * This codec maps a CQL {@link DataType#set(DataType) set type} to a Java {@link Set}.
      * Implementation note: this codec returns mutable, non thread-safe {@link LinkedHashSet} instances.
+     * Elements of type {@code int}, {@code bigint}, {@code float} and {@code double} are read and written
+     * without intermediary buffers, but they are still stored boxed.
      */
     private static class SetCodec<T> extends AbstractCollectionCodec<T, Set<T>> {
 
@@ -1925,10 +2080,17 @@ public abstract class TypeCodec<T> {
 
         protected final TypeCodec<V> valueCodec;
 
+        // non-null if keys (resp. values) are fixed-size numbers that can be read without intermediary buffers
+        private final PrimitiveCollections.Kind keyKind;
+
+        private final PrimitiveCollections.Kind valueKind;
+
         protected AbstractMapCodec(TypeCodec<K> keyCodec, TypeCodec<V> valueCodec) {
             super(DataType.map(keyCodec.getCqlType(), valueCodec.getCqlType()), TypeTokens.mapOf(keyCodec.getJavaType(), valueCodec.getJavaType()));
             this.keyCodec = keyCodec;
             this.valueCodec = valueCodec;
+            this.keyKind = PrimitiveCollections.Kind.of(keyCodec);
+            this.valueKind = PrimitiveCollections.Kind.of(valueCodec);
         }
 
         @Override
@@ -2020,36 +2182,61 @@ public abstract class TypeCodec<T> {
         public ByteBuffer serialize(Map<K, V> value, ProtocolVersion protocolVersion) {
             if (value == null)
                 return null;
+            // size the result first, only serializing the keys and values whose size is not known in advance
+            int n = value.size();
+            int size = CodecUtils.sizeOfCollectionSize(protocolVersion);
+            ByteBuffer[] bbs = null;
             int i = 0;
-            ByteBuffer[] bbs = new ByteBuffer[2 * value.size()];
             for (Map.Entry<K, V> entry : value.entrySet()) {
-                ByteBuffer bbk;
                 K key = entry.getKey();
                 if (key == null) {
                     throw new NullPointerException("Map keys cannot be null");
                 }
                 try {
-                    bbk = keyCodec.serialize(key, protocolVersion);
+                    int keySize = keyCodec.encodedSize(key, protocolVersion);
+                    if (keySize < 0) {
+                        if (bbs == null)
+                            bbs = new ByteBuffer[2 * n];
+                        bbs[i] = keyCodec.serialize(key, protocolVersion);
+                        size += CodecUtils.sizeOfValue(bbs[i], protocolVersion);
+                    } else {
+                        size += CodecUtils.sizeOfValue(keySize, protocolVersion);
+                    }
                 } catch (ClassCastException e) {
                     throw new InvalidTypeException(String.format("Invalid type for map key, expecting %s but got %s", keyCodec.getJavaType(), key.getClass()), e);
                 }
-                ByteBuffer bbv;
+                i++;
                 V v = entry.getValue();
                 if (v == null) {
                     throw new NullPointerException("Map values cannot be null");
                 }
                 try {
-                    bbv = valueCodec.serialize(v, protocolVersion);
+                    int valueSize = valueCodec.encodedSize(v, protocolVersion);
+                    if (valueSize < 0) {
+                        if (bbs == null)
+                            bbs = new ByteBuffer[2 * n];
+                        bbs[i] = valueCodec.serialize(v, protocolVersion);
+                        size += CodecUtils.sizeOfValue(bbs[i], protocolVersion);
+                    } else {
+                        size += CodecUtils.sizeOfValue(valueSize, protocolVersion);
+                    }
                 } catch (ClassCastException e) {
                     throw new InvalidTypeException(String.format("Invalid type for map value, expecting %s but got %s", valueCodec.getJavaType(), v.getClass()), e);
                 }
-                bbs[i++] = bbk;
-                bbs[i++] = bbv;
+                i++;
+            }
+            ByteBuffer output = ByteBuffer.allocate(size);
+            CodecUtils.writeSize(output, n, protocolVersion);
+            i = 0;
+            for (Map.Entry<K, V> entry : value.entrySet()) {
+                CodecUtils.writeElement(output, keyCodec, entry.getKey(), bbs, i++, protocolVersion);
+                CodecUtils.writeElement(output, valueCodec, entry.getValue(), bbs, i++, protocolVersion);
             }
-            return CodecUtils.pack(bbs, value.size(), protocolVersion);
+            return (ByteBuffer) output.flip();
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public Map<K, V> deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
                 return newInstance(0);
@@ -2058,9 +2245,13 @@ public abstract class TypeCodec<T> {
                 int n = CodecUtils.readSize(input, protocolVersion);
                 Map<K, V> m = newInstance(n);
                 for (int i = 0; i < n; i++) {
-                    ByteBuffer kbb = CodecUtils.readValue(input, protocolVersion);
-                    ByteBuffer vbb = CodecUtils.readValue(input, protocolVersion);
-                    m.put(keyCodec.deserialize(kbb, protocolVersion), valueCodec.deserialize(vbb, protocolVersion));
+                    K key = (keyKind == null)
+                            ? keyCodec.deserialize(CodecUtils.readValue(input, protocolVersion), protocolVersion)
+                            : (K) PrimitiveCollections.readElement(input, keyKind, keyCodec, protocolVersion);
+                    V v = (valueKind == null)
+                            ? valueCodec.deserialize(CodecUtils.readValue(input, protocolVersion), protocolVersion)
+                            : (V) PrimitiveCollections.readElement(input, valueKind, valueCodec, protocolVersion);
+                    m.put(key, v);
                 }
                 return m;
             } catch (BufferUnderflowException e) {
@@ -2081,6 +2272,8 @@ public abstract class TypeCodec<T> {
     /**
      * This codec maps a CQL {@link DataType#map(DataType, DataType) map type} to a Java {@link Map}.
      * Implementation note: this codec returns mutable, non thread-safe {@link LinkedHashMap} instances.
+     * Keys and values of type {@code int}, {@code bigint}, {@code float} and {@code double} are read and
+     * written without intermediary buffers, but they are still stored boxed.
      */
     private static class MapCodec<K, V> extends AbstractMapCodec<K, V> {
 
@@ -2311,6 +2504,41 @@ public abstract class TypeCodec<T> {
             return super.accepts(value) && ((UDTValue) value).getType().equals(definition);
         }
 
+        @Override
+        public ByteBuffer serialize(UDTValue value, ProtocolVersion protocolVersion) {
+            if (value == null)
+                return null;
+            int size = encodedSize(value, protocolVersion);
+            if (size < 0)
+                return super.serialize(value, protocolVersion);
+            ByteBuffer result = ByteBuffer.allocate(size);
+            encode(value, result, protocolVersion);
+            return (ByteBuffer) result.flip();
+        }
+
+        @Override
+        int encodedSize(UDTValue value, ProtocolVersion protocolVersion) {
+            // the fields of a value of another type must be looked up by name
+            if (value.getType() != definition && !value.getType().equals(definition))
+                return -1;
+            int size = 0;
+            for (ByteBuffer bb : value.values)
+                size += 4 + (bb == null ? 0 : bb.remaining());
+            return size;
+        }
+
+        @Override
+        void encode(UDTValue value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            for (ByteBuffer bb : value.values) {
+                if (bb == null) {
+                    output.putInt(-1);
+                } else {
+                    output.putInt(bb.remaining());
+                    output.put(bb.duplicate());
+                }
+            }
+        }
+
         @Override
         protected UDTValue newInstance() {
             return definition.newValue();
@@ -2540,6 +2768,42 @@ public abstract class TypeCodec<T> {
             return super.accepts(value) && definition.contains(((TupleValue) value).getType());
         }
 
+        @Override
+        public ByteBuffer serialize(TupleValue value, ProtocolVersion protocolVersion) {
+            if (value == null)
+                return null;
+            ByteBuffer result = ByteBuffer.allocate(encodedSize(value, protocolVersion));
+            encode(value, result, protocolVersion);
+            return (ByteBuffer) result.flip();
+        }
+
+        @Override
+        int encodedSize(TupleValue value, ProtocolVersion protocolVersion) {
+            int length = definition.getComponentTypes().size();
+            int size = 4 * length;
+            for (int i = 0; i < length && i < value.values.length; i++) {
+                ByteBuffer bb = value.values[i];
+                if (bb != null)
+                    size += bb.remaining();
+            }
+            return size;
+        }
+
+        @Override
+        void encode(TupleValue value, ByteBuffer output, ProtocolVersion protocolVersion) {
+            int length = definition.getComponentTypes().size();
+            for (int i = 0; i < length; i++) {
+                // missing trailing components are serialized as nulls
+                ByteBuffer bb = i < value.values.length ? value.values[i] : null;
+                if (bb == null) {
+                    output.putInt(-1);
+                } else {
+                    output.putInt(bb.remaining());
+                    output.put(bb.duplicate());
+                }
+            }
+        }
+
         @Override
         protected TupleValue newInstance() {
             return definition.newValue();
@@ -0,0 +1,45 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.exceptions;
+
+/**
+ * Indicates that a session rejected a request because its concurrency limit was reached.
+ * <p/>
+ * This only happens if admission control was enabled with
+ * {@link com.datastax.driver.core.PoolingOptions#setMaxRequestsPerSession(int)}. The request was not sent to any
+ * host; it is a signal that the client is sending more requests than the cluster can currently handle, and that it
+ * should back off or shed load.
+ */
+public class BusySessionException extends DriverException {
+
+    private static final long serialVersionUID = 0;
+
+    private final int limit;
+
+    public BusySessionException(int limit) {
+        this(limit, null);
+    }
+
+    private BusySessionException(int limit, Throwable cause) {
+        super(String.format("Session is busy (the number of concurrent requests has reached the current limit %d)", limit), cause);
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the concurrency limit of the session at the time the request was rejected.
+     *
+     * @return the limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public BusySessionException copy() {
+        return new BusySessionException(limit, this);
+    }
+}
@@ -18,7 +18,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * A wrapper load balancing policy that adds latency awareness to a child policy.
@@ -106,7 +106,7 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         public void run() {
             try {
                 logger.trace("Updating LatencyAwarePolicy minimum");
-                latencyTracker.updateMin();
+                latencyTracker.updateScores();
 
                 if (logger.isDebugEnabled()) {
                     /*
@@ -206,20 +206,15 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
 
             @Override
             protected Host computeNext() {
-                long min = latencyTracker.getMinAverage();
                 long now = System.nanoTime();
                 while (childIter.hasNext()) {
                     Host host = childIter.next();
-                    TimestampedAverage latency = latencyTracker.latencyOf(host);
+                    HostLatencyTracker latency = latencyTracker.latencyOf(host);
 
-                    // If we haven't had enough data point yet to have a score, or the last update of the score
-                    // is just too old, include the host.
-                    if (min < 0 || latency == null || latency.nbMeasure < minMeasure || (now - latency.timestamp) > retryPeriod)
-                        return host;
-
-                    // If the host latency is within acceptable bound of the faster known host, return
-                    // that host. Otherwise, skip it.
-                    if (latency.average <= ((long) (exclusionThreshold * (double) min)))
+                    // Whether the host is within acceptable bound of the faster known host is computed by the
+                    // updater. The retry period is checked here, so that an excluded host gets its second chance on
+                    // time even if the updater has not run since.
+                    if (latency == null || !latency.excluded || (now - latency.timestamp) > retryPeriod)
                         return host;
 
                     if (skipped == null)
@@ -245,14 +240,13 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
      * latency scores maintained by this policy.
      */
     public Snapshot getScoresSnapshot() {
-        Map<Host, TimestampedAverage> currentLatencies = latencyTracker.currentLatencies();
         ImmutableMap.Builder<Host, Snapshot.Stats> builder = ImmutableMap.builder();
         long now = System.nanoTime();
-        for (Map.Entry<Host, TimestampedAverage> entry : currentLatencies.entrySet()) {
-            Host host = entry.getKey();
-            TimestampedAverage latency = entry.getValue();
-            Snapshot.Stats stats = new Snapshot.Stats(now - latency.timestamp, latency.average, latency.nbMeasure);
-            builder.put(host, stats);
+        for (Map.Entry<Host, HostLatencyTracker> entry : latencyTracker.latencies.entrySet()) {
+            HostLatencyTracker latency = entry.getValue();
+            // The host might have been updated since we read the time
+            long lastUpdatedSince = Math.max(0, now - latency.timestamp);
+            builder.put(entry.getKey(), new Snapshot.Stats(lastUpdatedSince, latency.average, latency.nbMeasure));
         }
         return new Snapshot(builder.build());
     }
@@ -400,32 +394,37 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
             return true;
         }
 
-        public void updateMin() {
+        /**
+         * Recomputes the minimum average, and whether each host should be excluded from query plans. This is done
+         * periodically rather than for every query plan, so that building a plan only reads a flag per host.
+         */
+        public void updateScores() {
             long newMin = Long.MAX_VALUE;
             long now = System.nanoTime();
             for (HostLatencyTracker tracker : latencies.values()) {
-                TimestampedAverage latency = tracker.getCurrentAverage();
-                if (latency != null && latency.average >= 0 && latency.nbMeasure >= minMeasure && (now - latency.timestamp) <= retryPeriod)
-                    newMin = Math.min(newMin, latency.average);
+                if (isScored(tracker, now))
+                    newMin = Math.min(newMin, tracker.average);
             }
             if (newMin != Long.MAX_VALUE)
                 cachedMin = newMin;
+
+            long min = cachedMin;
+            long threshold = (long) (exclusionThreshold * (double) min);
+            for (HostLatencyTracker tracker : latencies.values())
+                tracker.excluded = min >= 0 && isScored(tracker, now) && tracker.average > threshold;
         }
 
-        public long getMinAverage() {
-            return cachedMin;
+        // Whether we have enough recent data points for the host to have a score
+        private boolean isScored(HostLatencyTracker tracker, long now) {
+            return tracker.average >= 0 && tracker.nbMeasure >= minMeasure && (now - tracker.timestamp) <= retryPeriod;
         }
 
-        public TimestampedAverage latencyOf(Host host) {
-            HostLatencyTracker tracker = latencies.get(host);
-            return tracker == null ? null : tracker.getCurrentAverage();
+        public long getMinAverage() {
+            return cachedMin;
         }
 
-        public Map<Host, TimestampedAverage> currentLatencies() {
-            Map<Host, TimestampedAverage> map = new HashMap<Host, TimestampedAverage>(latencies.size());
-            for (Map.Entry<Host, HostLatencyTracker> entry : latencies.entrySet())
-                map.put(entry.getKey(), entry.getValue().getCurrentAverage());
-            return map;
+        public HostLatencyTracker latencyOf(Host host) {
+            return latencies.get(host);
         }
 
         public void resetHost(Host host) {
@@ -443,24 +442,23 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         }
     }
 
-    private static class TimestampedAverage {
-
-        private final long timestamp;
-        private final long average;
-        private final long nbMeasure;
-
-        TimestampedAverage(long timestamp, long average, long nbMeasure) {
-            this.timestamp = timestamp;
-            this.average = average;
-            this.nbMeasure = nbMeasure;
-        }
-    }
-
     private static class HostLatencyTracker {
 
+        private static final AtomicIntegerFieldUpdater<HostLatencyTracker> UPDATING =
+                AtomicIntegerFieldUpdater.newUpdater(HostLatencyTracker.class, "updating");
+
         private final long thresholdToAccount;
         private final double scale;
-        private final AtomicReference<TimestampedAverage> current = new AtomicReference<TimestampedAverage>();
+
+        // Only one thread updates the average at a time (see add()). Readers don't synchronize with it, so they might
+        // observe the fields of two consecutive updates, which is harmless for our purpose.
+        private volatile int updating;
+        private volatile long timestamp = System.nanoTime();
+        private volatile long average = -1L;
+        private volatile long nbMeasure;
+
+        // Whether the host is currently excluded from query plans, computed periodically by the updater
+        private volatile boolean excluded;
 
         HostLatencyTracker(long scale, long thresholdToAccount) {
             this.scale = (double) scale; // We keep in double since that's how we'll use it.
@@ -468,46 +466,44 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         }
 
         public void add(long newLatencyNanos) {
-            TimestampedAverage previous, next;
-            do {
-                previous = current.get();
-                next = computeNextAverage(previous, newLatencyNanos);
-            } while (next != null && !current.compareAndSet(previous, next));
-        }
-
-        private TimestampedAverage computeNextAverage(TimestampedAverage previous, long newLatencyNanos) {
-
-            long currentTimestamp = System.nanoTime();
-
-            long nbMeasure = previous == null ? 1 : previous.nbMeasure + 1;
-            if (nbMeasure < thresholdToAccount)
-                return new TimestampedAverage(currentTimestamp, -1L, nbMeasure);
-
-            if (previous == null || previous.average < 0)
-                return new TimestampedAverage(currentTimestamp, newLatencyNanos, nbMeasure);
-
-            // Note: it's possible for the delay to be 0, in which case newLatencyNanos will basically be
-            // discarded. It's fine: nanoTime is precise enough in practice that even if it happens, it
-            // will be very rare, and discarding a latency every once in a while is not the end of the world.
-            // We do test for negative value, even though in theory that should not happen, because it seems
-            // that historically there has been bugs here (https://blogs.oracle.com/dholmes/entry/inside_the_hotspot_vm_clocks)
-            // so while this is almost surely not a problem anymore, there's no reason to break the computation
-            // if this even happen.
-            long delay = currentTimestamp - previous.timestamp;
-            if (delay <= 0)
-                return null;
-
-            double scaledDelay = ((double) delay) / scale;
-            // Note: We don't use log1p because we it's quite a bit slower and we don't care about the precision (and since we
-            // refuse ridiculously big scales, scaledDelay can't be so low that scaledDelay+1 == 1.0 (due to rounding)).
-            double prevWeight = Math.log(scaledDelay + 1) / scaledDelay;
-            long newAverage = (long) ((1.0 - prevWeight) * newLatencyNanos + prevWeight * previous.average);
-
-            return new TimestampedAverage(currentTimestamp, newAverage, nbMeasure);
-        }
+            // If another thread is already updating the average, discard this measurement instead of waiting. Since
+            // the weight of a new latency depends on the time elapsed since the previous update, and not on the number
+            // of measurements, this doesn't bias the average.
+            if (!UPDATING.compareAndSet(this, 0, 1))
+                return;
+            try {
+                long currentTimestamp = System.nanoTime();
+
+                long newNbMeasure = nbMeasure + 1;
+                if (newNbMeasure < thresholdToAccount || average < 0) {
+                    if (newNbMeasure >= thresholdToAccount)
+                        average = newLatencyNanos;
+                    timestamp = currentTimestamp;
+                    nbMeasure = newNbMeasure;
+                    return;
+                }
 
-        public TimestampedAverage getCurrentAverage() {
-            return current.get();
+                // Note: it's possible for the delay to be 0, in which case newLatencyNanos will basically be
+                // discarded. It's fine: nanoTime is precise enough in practice that even if it happens, it
+                // will be very rare, and discarding a latency every once in a while is not the end of the world.
+                // We do test for negative value, even though in theory that should not happen, because it seems
+                // that historically there has been bugs here (https://blogs.oracle.com/dholmes/entry/inside_the_hotspot_vm_clocks)
+                // so while this is almost surely not a problem anymore, there's no reason to break the computation
+                // if this even happen.
+                long delay = currentTimestamp - timestamp;
+                if (delay <= 0)
+                    return;
+
+                double scaledDelay = ((double) delay) / scale;
+                // Note: We don't use log1p because we it's quite a bit slower and we don't care about the precision (and since we
+                // refuse ridiculously big scales, scaledDelay can't be so low that scaledDelay+1 == 1.0 (due to rounding)).
+                double prevWeight = Math.log(scaledDelay + 1) / scaledDelay;
+                average = (long) ((1.0 - prevWeight) * newLatencyNanos + prevWeight * average);
+                timestamp = currentTimestamp;
+                nbMeasure = newNbMeasure;
+            } finally {
+                updating = 0;
+            }
         }
     }
 
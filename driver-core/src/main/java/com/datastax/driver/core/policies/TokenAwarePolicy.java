@@ -12,6 +12,9 @@ import com.google.common.collect.Lists;
 
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A wrapper load balancing policy that add token awareness to a child policy.
@@ -34,11 +37,19 @@ import java.util.*;
  * priority. For example, if you wrap {@link DCAwareRoundRobinPolicy} with this
  * token aware policy, replicas from remote data centers may only be
  * returned after all the host of the local data center.
+ * <p/>
+ * Replicas are returned in the order of the token map, randomly, or ordered by their current load, depending on the
+ * constructor used to create this policy.
  */
 public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
 
+    // The latency of a replica is refreshed at most this often, since computing a percentile is not free
+    private static final long LATENCY_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private final LoadBalancingPolicy childPolicy;
     private final boolean shuffleReplicas;
+    private final PerHostPercentileTracker latencyTracker;
+    private final ConcurrentMap<Host, HostLatency> latencies = new ConcurrentHashMap<Host, HostLatency>();
     private volatile Metadata clusterMetadata;
     private volatile ProtocolVersion protocolVersion;
     private volatile CodecRegistry codecRegistry;
@@ -58,6 +69,31 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
     public TokenAwarePolicy(LoadBalancingPolicy childPolicy, boolean shuffleReplicas) {
         this.childPolicy = childPolicy;
         this.shuffleReplicas = shuffleReplicas;
+        this.latencyTracker = null;
+    }
+
+    /**
+     * Creates a new {@code TokenAware} policy that orders replicas by their current load.
+     * <p/>
+     * For each query, replicas are ranked by a score that combines the number of requests in flight to them
+     * ({@link Host#getInFlightQueries()}) and their 99th percentile latency as measured by {@code latencyTracker},
+     * and the replica with the lowest score is tried first. Replicas with the same score are shuffled. A replica for
+     * which the tracker does not have enough data yet is assumed to be as fast as the fastest other replica.
+     * <p/>
+     * This is similar to the dynamic snitch on the server side: it steers requests away from a replica that is
+     * overloaded or slow (for example because of garbage collection or compaction), which reduces tail latencies.
+     * It has the same drawback as shuffling regarding the effectiveness of caching.
+     *
+     * @param childPolicy    the load balancing policy to wrap with token awareness.
+     * @param latencyTracker the tracker that measures the latency of each host. It must be registered with the
+     *                       cluster with {@link Cluster#register(LatencyTracker)}.
+     */
+    public TokenAwarePolicy(LoadBalancingPolicy childPolicy, PerHostPercentileTracker latencyTracker) {
+        if (latencyTracker == null)
+            throw new IllegalArgumentException("latencyTracker must not be null");
+        this.childPolicy = childPolicy;
+        this.shuffleReplicas = false;
+        this.latencyTracker = latencyTracker;
     }
 
     /**
@@ -109,8 +145,11 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
     @Override
     public Iterator<Host> newQueryPlan(final String loggedKeyspace, final Statement statement) {
 
-        Token token = statement.getRoutingToken();
-        ByteBuffer partitionKey = statement.getRoutingKey(protocolVersion, codecRegistry);
+        Token token = statement instanceof BoundStatement
+                // bound statements cache the token of their routing key, so that it is only hashed once
+                ? clusterMetadata.getRoutingToken((BoundStatement) statement)
+                : statement.getRoutingToken();
+        ByteBuffer partitionKey = (token == null) ? statement.getRoutingKey(protocolVersion, codecRegistry) : null;
         String keyspace = statement.getKeyspace();
         if (keyspace == null)
             keyspace = loggedKeyspace;
@@ -126,7 +165,9 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
             return childPolicy.newQueryPlan(loggedKeyspace, statement);
 
         final Iterator<Host> iter;
-        if (shuffleReplicas) {
+        if (latencyTracker != null) {
+            iter = orderByLoad(replicas).iterator();
+        } else if (shuffleReplicas) {
             List<Host> l = Lists.newArrayList(replicas);
             Collections.shuffle(l);
             iter = l.iterator();
@@ -160,6 +201,60 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
         };
     }
 
+    private List<Host> orderByLoad(Set<Host> replicas) {
+        List<Host> hosts = Lists.newArrayList(replicas);
+        // Shuffle first, the sort below is stable so replicas with the same score stay in random order
+        Collections.shuffle(hosts);
+        int size = hosts.size();
+        long[] hostLatencies = new long[size];
+        long minLatency = -1;
+        for (int i = 0; i < size; i++) {
+            long latency = getLatency(hosts.get(i));
+            hostLatencies[i] = latency;
+            if (latency >= 0 && (minLatency < 0 || latency < minLatency))
+                minLatency = latency;
+        }
+        long[] scores = new long[size];
+        for (int i = 0; i < size; i++) {
+            long latency = hostLatencies[i] >= 0 ? hostLatencies[i] : Math.max(minLatency, 0);
+            scores[i] = (hosts.get(i).getInFlightQueries() + 1L) * (latency + 1);
+        }
+        // Insertion sort, there are only a few replicas
+        for (int i = 1; i < size; i++) {
+            Host host = hosts.get(i);
+            long score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] > score) {
+                scores[j + 1] = scores[j];
+                hosts.set(j + 1, hosts.get(j));
+                j--;
+            }
+            scores[j + 1] = score;
+            hosts.set(j + 1, host);
+        }
+        return hosts;
+    }
+
+    private long getLatency(Host host) {
+        long now = System.nanoTime();
+        HostLatency latency = latencies.get(host);
+        if (latency == null || now - latency.timestamp > LATENCY_REFRESH_NANOS) {
+            latency = new HostLatency(latencyTracker.getLatencyAtPercentile(host, null, null, 99.0), now);
+            latencies.put(host, latency);
+        }
+        return latency.value;
+    }
+
+    private static class HostLatency {
+        private final long value;
+        private final long timestamp;
+
+        private HostLatency(long value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
     @Override
     public void onUp(Host host) {
         childPolicy.onUp(host);
@@ -177,6 +272,7 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
 
     @Override
     public void onRemove(Host host) {
+        latencies.remove(host);
         childPolicy.onRemove(host);
     }
 
@@ -0,0 +1,92 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.*;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdmissionControllerTest {
+
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 9042);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test(groups = "unit")
+    public void should_reject_requests_above_limit() {
+        AdmissionController controller = new AdmissionController(10);
+        for (int i = 0; i < 10; i++)
+            assertThat(controller.tryAcquire()).isTrue();
+        assertThat(controller.tryAcquire()).isFalse();
+        assertThat(controller.getInFlight()).isEqualTo(10);
+
+        controller.onCancelled();
+        assertThat(controller.tryAcquire()).isTrue();
+        assertThat(controller.tryAcquire()).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_back_off_on_overload_errors() {
+        AdmissionController controller = new AdmissionController(100);
+        fill(controller);
+
+        controller.onCompleted(FAST, new OperationTimedOutException(ADDRESS));
+        assertThat(controller.getLimit()).isEqualTo(90);
+        controller.onCompleted(FAST, new NoHostAvailableException(
+                ImmutableMap.<InetSocketAddress, Throwable>of(ADDRESS, new BusyPoolException(ADDRESS, 256))));
+        assertThat(controller.getLimit()).isEqualTo(81);
+
+        // errors that are unrelated to load don't change the limit
+        controller.onCompleted(FAST, new InvalidQueryException("mock error"));
+        assertThat(controller.getLimit()).isEqualTo(81);
+        assertThat(controller.getInFlight()).isEqualTo(97);
+    }
+
+    @Test(groups = "unit")
+    public void should_shrink_limit_when_latency_increases_and_grow_back_when_it_recovers() {
+        AdmissionController controller = new AdmissionController(100);
+        fill(controller);
+
+        for (int i = 0; i < 10; i++)
+            complete(controller, FAST);
+        assertThat(controller.getLimit()).isEqualTo(100);
+
+        for (int i = 0; i < 20; i++)
+            complete(controller, SLOW);
+        int shrunk = controller.getLimit();
+        assertThat(shrunk).isLessThan(50);
+
+        for (int i = 0; i < 20; i++)
+            complete(controller, FAST);
+        assertThat(controller.getLimit()).isGreaterThan(shrunk);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_go_below_minimum_limit() {
+        AdmissionController controller = new AdmissionController(100);
+        fill(controller);
+        for (int i = 0; i < 100; i++)
+            controller.onCompleted(FAST, new OverloadedException(ADDRESS, "mock error"));
+        assertThat(controller.getLimit()).isEqualTo(8);
+    }
+
+    private static void fill(AdmissionController controller) {
+        while (controller.tryAcquire()) {
+        }
+    }
+
+    // Completes a request and immediately replaces it, to simulate a client that keeps the limit busy
+    private static void complete(AdmissionController controller, long latency) {
+        controller.onCompleted(latency, null);
+        fill(controller);
+    }
+}
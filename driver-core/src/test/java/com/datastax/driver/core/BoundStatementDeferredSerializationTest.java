@@ -0,0 +1,116 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BoundStatementDeferredSerializationTest {
+
+    private static final ProtocolVersion VERSION = ProtocolVersion.NEWEST_SUPPORTED;
+
+    @Test(groups = "unit")
+    public void should_write_deferred_values_like_serialized_values() {
+        BoundStatement deferred = bind(newBoundStatement(true));
+        BoundStatement serialized = bind(newBoundStatement(false));
+
+        List<ByteBuffer> deferredValues = deferred.wrapper.encodableValues();
+        List<ByteBuffer> serializedValues = serialized.wrapper.encodableValues();
+        assertThat(deferredValues).isInstanceOf(BoundStatement.DeferredValues.class);
+        assertThat(serializedValues).isNotInstanceOf(BoundStatement.DeferredValues.class);
+        assertThat(deferred.wrapper.values[0]).isSameAs(BoundStatement.DEFERRED);
+
+        assertThat(encode(deferredValues)).isEqualTo(encode(serializedValues));
+        assertThat(CBUtil.sizeOfValueList(deferredValues)).isEqualTo(CBUtil.sizeOfValueList(serializedValues));
+        // reading deferred values serializes them
+        assertThat(deferredValues).isEqualTo(serializedValues);
+        for (int i = 0; i < 5; i++)
+            assertThat(deferred.getBytesUnsafe(i)).isEqualTo(serialized.getBytesUnsafe(i));
+        assertThat(deferred.getInt("c_int")).isEqualTo(42);
+        assertThat(deferred.getDouble("c_double")).isEqualTo(-0.5D);
+        assertThat(deferred.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE))
+                .isEqualTo(serialized.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE));
+    }
+
+    @Test(groups = "unit")
+    public void should_replace_deferred_values() {
+        BoundStatement deferred = bind(newBoundStatement(true));
+        ByteBuffer key = deferred.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE);
+
+        deferred.bind(null, null, 7.5F);
+        deferred.setToNull(0);
+        deferred.unset(1);
+        assertThat(deferred.isNull(0)).isTrue();
+        assertThat(deferred.isSet(1)).isFalse();
+        assertThat(deferred.getFloat(2)).isEqualTo(7.5F);
+        assertThat(deferred.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+
+        deferred.setInt(0, 42).setLong(1, Long.MIN_VALUE);
+        assertThat(deferred.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE)).isEqualTo(key);
+        ByteBuf encoded = encode(deferred.wrapper.encodableValues());
+        encoded.skipBytes(2);
+        assertThat(CBUtil.readValue(encoded)).isEqualTo(TypeCodec.cint().serialize(42, VERSION));
+    }
+
+    @Test(groups = "unit")
+    public void should_take_deferred_values_into_account_in_paging_state() {
+        BoundStatement statement = bind(newBoundStatement(true));
+        BoundStatement same = bind(newBoundStatement(true));
+        BoundStatement other = bind(newBoundStatement(true)).setInt("c_int", 43);
+
+        PagingState pagingState = new PagingState(ByteBuffer.wrap(new byte[]{1, 2, 3}), statement, VERSION, CodecRegistry.DEFAULT_INSTANCE);
+        assertThat(pagingState.matches(same, CodecRegistry.DEFAULT_INSTANCE)).isTrue();
+        assertThat(pagingState.matches(other, CodecRegistry.DEFAULT_INSTANCE)).isFalse();
+
+        assertThat(statement.wrapper).isEqualTo(same.wrapper);
+        assertThat(statement.wrapper.hashCode()).isEqualTo(same.wrapper.hashCode());
+        assertThat(statement.wrapper).isNotEqualTo(other.wrapper);
+    }
+
+    private static BoundStatement bind(BoundStatement statement) {
+        return statement
+                .setInt("c_int", 42)
+                .setLong("c_bigint", Long.MIN_VALUE)
+                .setFloat("c_float", 1.5F)
+                .setDouble("c_double", -0.5D)
+                .setString("c_text", "foo");
+    }
+
+    private static ByteBuf encode(List<ByteBuffer> values) {
+        ByteBuf buf = Unpooled.buffer();
+        CBUtil.writeValueList(values, buf);
+        assertThat(buf.readableBytes()).isEqualTo(CBUtil.sizeOfValueList(values));
+        return buf;
+    }
+
+    private static BoundStatement newBoundStatement(boolean deferValueSerialization) {
+        Cluster cluster = mock(Cluster.class);
+        Configuration configuration = mock(Configuration.class);
+        when(cluster.getConfiguration()).thenReturn(configuration);
+        when(configuration.getQueryOptions()).thenReturn(new QueryOptions().setDeferValueSerialization(deferValueSerialization));
+        when(configuration.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        ColumnDefinitions variables = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "foo", "c_int", DataType.cint()),
+                new ColumnDefinitions.Definition("ks", "foo", "c_bigint", DataType.bigint()),
+                new ColumnDefinitions.Definition("ks", "foo", "c_float", DataType.cfloat()),
+                new ColumnDefinitions.Definition("ks", "foo", "c_double", DataType.cdouble()),
+                new ColumnDefinitions.Definition("ks", "foo", "c_text", DataType.text())
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        PreparedId id = new PreparedId(null, variables, null, new int[]{0, 1}, VERSION);
+        return new BoundStatement(new DefaultPreparedStatement(id, "irrelevant", "ks",
+                Collections.<String, ByteBuffer>emptyMap(), cluster));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BoundStatementRoutingKeyTest {
+
+    private static final Token.Factory FACTORY = Token.M3PToken.FACTORY;
+    private static final ProtocolVersion VERSION = ProtocolVersion.NEWEST_SUPPORTED;
+
+    @Test(groups = "unit")
+    public void should_cache_composite_routing_key_and_token_until_key_value_changes() {
+        PreparedStatement prepared = prepared(0, 1);
+        BoundStatement statement = new BoundStatement(prepared).bind(1, 2, 3);
+
+        ByteBuffer key = statement.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE);
+        Token token = statement.getRoutingToken(FACTORY);
+        assertThat(token).isEqualTo(FACTORY.hash(key));
+        assertThat(statement.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(key);
+        assertThat(statement.getRoutingToken(FACTORY)).isSameAs(token);
+
+        // not part of the partition key
+        statement.setInt(2, 4);
+        assertThat(statement.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(key);
+        assertThat(statement.getRoutingToken(FACTORY)).isSameAs(token);
+
+        statement.setInt("c1", 5);
+        ByteBuffer newKey = statement.getRoutingKey(VERSION, CodecRegistry.DEFAULT_INSTANCE);
+        assertThat(newKey).isNotEqualTo(key);
+        assertThat(statement.getRoutingToken(FACTORY))
+                .isNotEqualTo(token)
+                .isEqualTo(FACTORY.hash(newKey));
+
+        Token boundToken = statement.getRoutingToken(FACTORY);
+        statement.bind(1, 2, 3);
+        assertThat(statement.getRoutingToken(FACTORY)).isEqualTo(token);
+        assertThat(statement.getRoutingToken(FACTORY)).isNotEqualTo(boundToken);
+    }
+
+    @Test(groups = "unit")
+    public void should_cache_token_of_single_routing_key_and_explicit_routing_key() {
+        BoundStatement statement = new BoundStatement(prepared(0)).bind(1, 2, 3);
+        Token token = statement.getRoutingToken(FACTORY);
+        assertThat(statement.getRoutingToken(FACTORY)).isSameAs(token);
+
+        statement.setInt(0, 7);
+        assertThat(statement.getRoutingToken(FACTORY)).isEqualTo(FACTORY.hash(TypeCodec.cint().serialize(7, VERSION)));
+
+        ByteBuffer explicitKey = TypeCodec.cint().serialize(42, VERSION);
+        statement.setRoutingKey(explicitKey);
+        Token explicitToken = statement.getRoutingToken(FACTORY);
+        assertThat(explicitToken).isEqualTo(FACTORY.hash(explicitKey));
+        assertThat(statement.getRoutingToken(FACTORY)).isSameAs(explicitToken);
+        // a token computed with another partitioner is not reused
+        assertThat(statement.getRoutingToken(Token.RPToken.FACTORY)).isEqualTo(Token.RPToken.FACTORY.hash(explicitKey));
+    }
+
+    @Test(groups = "unit")
+    public void should_not_cache_token_of_prepared_statement_routing_key() {
+        PreparedStatement prepared = prepared(0);
+        ByteBuffer key1 = TypeCodec.cint().serialize(1, VERSION);
+        ByteBuffer key2 = TypeCodec.cint().serialize(2, VERSION);
+        when(prepared.getRoutingKey()).thenReturn(key1);
+        BoundStatement statement = new BoundStatement(prepared);
+        assertThat(statement.getRoutingToken(FACTORY)).isEqualTo(FACTORY.hash(key1));
+
+        when(prepared.getRoutingKey()).thenReturn(key2);
+        assertThat(statement.getRoutingToken(FACTORY)).isEqualTo(FACTORY.hash(key2));
+    }
+
+    private static PreparedStatement prepared(int... routingKeyIndexes) {
+        ColumnDefinitions variables = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "foo", "c1", DataType.cint()),
+                new ColumnDefinitions.Definition("ks", "foo", "c2", DataType.cint()),
+                new ColumnDefinitions.Definition("ks", "foo", "c3", DataType.cint())
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.getVariables()).thenReturn(variables);
+        when(prepared.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        when(prepared.getPreparedId()).thenReturn(new PreparedId(null, variables, null, routingKeyIndexes, VERSION));
+        return prepared;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class CoalescingFlushPolicyTest {
+
+    private final FlushPolicy policy = new CoalescingFlushPolicy(50, TimeUnit.MICROSECONDS, 16, 8192);
+
+    @Test(groups = "unit")
+    public void should_not_flush_if_no_threshold_reached() {
+        assertThat(policy.shouldFlush(1, 100, TimeUnit.MICROSECONDS.toNanos(10))).isFalse();
+        assertThat(policy.shouldFlush(15, 8191, TimeUnit.MICROSECONDS.toNanos(49))).isFalse();
+        assertThat(policy.shouldFlush(15, -1, 0)).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_when_max_delay_elapsed() {
+        assertThat(policy.shouldFlush(1, 100, TimeUnit.MICROSECONDS.toNanos(50))).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_when_max_frames_reached() {
+        assertThat(policy.shouldFlush(16, 100, 0)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_when_max_bytes_reached() {
+        assertThat(policy.shouldFlush(1, 8192, 0)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_immediately_with_zero_delay() {
+        FlushPolicy policy = new CoalescingFlushPolicy(0, TimeUnit.MICROSECONDS, 16, 8192);
+        assertThat(policy.shouldFlush(1, 100, 0)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_always_flush_with_immediate_policy() {
+        assertThat(ImmediateFlushPolicy.INSTANCE.shouldFlush(1, -1, 0)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_reject_invalid_arguments() {
+        try {
+            new CoalescingFlushPolicy(-1, TimeUnit.MICROSECONDS, 16, 8192);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {/*expected*/}
+        try {
+            new CoalescingFlushPolicy(50, TimeUnit.MICROSECONDS, 0, 8192);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {/*expected*/}
+        try {
+            new CoalescingFlushPolicy(50, TimeUnit.MICROSECONDS, 16, 0);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {/*expected*/}
+    }
+}
@@ -6,8 +6,16 @@
  */
 package com.datastax.driver.core;
 
+import com.datastax.driver.core.exceptions.CodecNotFoundException;
+import com.google.common.collect.Lists;
+import com.google.common.reflect.TypeToken;
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.testng.Assert.assertTrue;
 
 public class ColumnDefinitionsTest {
@@ -60,4 +68,56 @@ public class ColumnDefinitionsTest {
 
         assertTrue(defs.getType("column").equals(DataType.text()));
     }
+
+    @Test(groups = "unit")
+    public void should_resolve_and_cache_codecs_per_column() {
+        ColumnDefinitions defs = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "cf", "i", DataType.cint()),
+                new ColumnDefinitions.Definition("ks", "cf", "l", DataType.list(DataType.text()))
+        }, CodecRegistry.DEFAULT_INSTANCE);
+
+        assertThat(defs.codecFor(0, Integer.class, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(TypeCodec.cint());
+        assertThat(defs.codecFor(0, Integer.class, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(TypeCodec.cint());
+        assertThat(defs.codecFor(0, null, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(TypeCodec.cint());
+        // equal type tokens hit the cache too
+        TypeCodec<List<String>> listCodec = defs.codecFor(1, new TypeToken<List<String>>() {
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        assertThat(listCodec.accepts(DataType.list(DataType.text()))).isTrue();
+        assertThat(defs.codecFor(1, new TypeToken<List<String>>() {
+        }, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(listCodec);
+
+        // another Java type or registry is resolved again
+        try {
+            defs.codecFor(0, String.class, CodecRegistry.DEFAULT_INSTANCE);
+            fail("Expected a CodecNotFoundException");
+        } catch (CodecNotFoundException e) {
+            // expected
+        }
+        CodecRegistry registry = new CodecRegistry().register(new IntToStringCodec());
+        assertThat(defs.codecFor(0, String.class, registry)).isInstanceOf(IntToStringCodec.class);
+        assertThat(defs.codecFor(0, Integer.class, CodecRegistry.DEFAULT_INSTANCE)).isSameAs(TypeCodec.cint());
+
+        Row row = ArrayBackedRow.fromData(defs, null, ProtocolVersion.NEWEST_SUPPORTED, Lists.<ByteBuffer>newArrayList(
+                TypeCodec.cint().serialize(42, ProtocolVersion.NEWEST_SUPPORTED), null));
+        assertThat(row.getInt(0)).isEqualTo(42);
+        assertThat(row.getObject(0)).isEqualTo(42);
+        assertThat(row.getList(1, String.class)).isEmpty();
+    }
+
+    private static class IntToStringCodec extends MappingCodec<String, Integer> {
+
+        IntToStringCodec() {
+            super(TypeCodec.cint(), String.class);
+        }
+
+        @Override
+        protected String deserialize(Integer value) {
+            return value.toString();
+        }
+
+        @Override
+        protected Integer serialize(String value) {
+            return Integer.parseInt(value);
+        }
+    }
 }
@@ -6,6 +6,7 @@
  */
 package com.datastax.driver.core;
 
+import com.codahale.metrics.Gauge;
 import com.datastax.driver.core.exceptions.ClientWriteException;
 import com.datastax.driver.core.exceptions.DriverException;
 import com.datastax.driver.core.exceptions.OperationTimedOutException;
@@ -177,6 +178,86 @@ public class ContinuousPagingTest extends CCMDseTestsSupport {
         assertThat(stats.pages).isEqualTo(expectedPages);
     }
 
+    /**
+     * Validates that with {@link ContinuousPagingOptions.Builder#withMaxEnqueuedBytes(long)}, the driver stops reading
+     * pages once the budget is exceeded, and that the queued bytes gauge goes back to 0 once all pages are consumed.
+     *
+     * @test_category queries
+     */
+    @Test(groups = "short")
+    public void should_pause_at_byte_budget_and_release_queued_bytes_when_consumed() throws Exception {
+        // each row is 48 bytes (4 + 4 for v, 4 + 16 for v0 and v1), so the whole result is ~960KB
+        SimpleStatement statement = new SimpleStatement("SELECT v, v0, v1 from test2 where k=?", KEY);
+        ContinuousPagingOptions options = ContinuousPagingOptions.builder().withPageSize(100, ROWS).withMaxEnqueuedBytes(1).build();
+        Gauge<Long> queuedBytes = cluster().getMetrics().getContinuousPagingQueuedBytes();
+
+        AsyncContinuousPagingResult page = Uninterruptibles.getUninterruptibly(
+                cSession().executeContinuouslyAsync(statement, options), 10, TimeUnit.SECONDS);
+        // give the server time to send pages: reading stops once a page is queued, so only the pages that were
+        // already read from the socket at that point can be queued
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        assertThat(queuedBytes.getValue()).isGreaterThan(0L).isLessThan(20000 * 48 / 2L);
+
+        int rows = 0;
+        while (true) {
+            rows += Iterables.size(page.currentPage());
+            if (page.isLast())
+                break;
+            page = Uninterruptibles.getUninterruptibly(page.nextPage(), 10, TimeUnit.SECONDS);
+        }
+        assertThat(rows).isEqualTo(20000);
+        assertThat(queuedBytes.getValue()).isEqualTo(0L);
+    }
+
+    /**
+     * Validates that cancelling a continuous paging query discards the pages that were queued but not consumed,
+     * so that the queued bytes gauge goes back to 0.
+     *
+     * @test_category queries
+     */
+    @Test(groups = "short")
+    public void should_release_queued_bytes_when_cancelled() throws Exception {
+        SimpleStatement statement = new SimpleStatement("SELECT v, v0, v1 from test2 where k=?", KEY);
+        ContinuousPagingOptions options = ContinuousPagingOptions.builder().withPageSize(100, ROWS).withMaxEnqueuedBytes(1).build();
+        Gauge<Long> queuedBytes = cluster().getMetrics().getContinuousPagingQueuedBytes();
+
+        AsyncContinuousPagingResult page = Uninterruptibles.getUninterruptibly(
+                cSession().executeContinuouslyAsync(statement, options), 10, TimeUnit.SECONDS);
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        assertThat(queuedBytes.getValue()).isGreaterThan(0L);
+
+        page.cancel();
+        assertThat(queuedBytes.getValue()).isEqualTo(0L);
+    }
+
+    /**
+     * Validates that cancelling a continuous paging query after its last page filled the queue re-enables reading
+     * from the connection, so that the other requests sent on that connection still get their responses.
+     *
+     * @test_category queries
+     */
+    @Test(groups = "short")
+    public void should_resume_reading_when_cancelled_after_last_page_filled_queue() throws Exception {
+        // 2 pages: the first one completes the future, the second (and last) one fills the queue
+        SimpleStatement statement = new SimpleStatement("SELECT v from test where k=?", KEY);
+        ContinuousPagingOptions options = ContinuousPagingOptions.builder().withPageSize(50, ROWS).withMaxEnqueuedBytes(1).build();
+        Gauge<Long> queuedBytes = cluster().getMetrics().getContinuousPagingQueuedBytes();
+        Host host = cluster().getMetadata().getAllHosts().iterator().next();
+
+        AsyncContinuousPagingResult page = Uninterruptibles.getUninterruptibly(
+                cSession().executeContinuouslyAsync(statement, options), 10, TimeUnit.SECONDS);
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        assertThat(queuedBytes.getValue()).isGreaterThan(0L);
+
+        page.cancel();
+        assertThat(queuedBytes.getValue()).isEqualTo(0L);
+
+        // the next request goes through the same connection, it would never get a response if auto-read was off
+        assertThat(session().getState().getOpenConnections(host)).isEqualTo(1);
+        ResultSet rs = session().executeAsync(statement).get(5, TimeUnit.SECONDS);
+        assertThat(rs.all()).hasSize(100);
+    }
+
     /* TODO: There isn't a deterministic way here to determine that the cancel message was sent.
      * Consider rewriting a mock to ensure cancel is sent but for now this can be validated by observing the debug
      * logs when this test runs.
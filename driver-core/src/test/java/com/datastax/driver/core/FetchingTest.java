@@ -50,4 +50,37 @@ public class FetchingTest extends CCMTestsSupport {
             assertEquals(cluster().getConfiguration().getProtocolOptions().getProtocolVersion(), ProtocolVersion.V1);
         }
     }
+
+    @Test(groups = "short")
+    public void should_prefetch_next_page_when_threshold_is_reached() throws Exception {
+        try {
+            String key = "prefetch_test";
+            for (int i = 0; i < 100; i++)
+                session().execute(String.format("INSERT INTO test (k, v) VALUES ('%s', %d)", key, i));
+
+            SimpleStatement st = new SimpleStatement(String.format("SELECT v FROM test WHERE k='%s'", key));
+            st.setFetchSize(10);
+            st.setPrefetchThreshold(0.5);
+            ResultSet rs = session().execute(st);
+
+            for (int i = 0; i < 5; i++)
+                assertEquals(rs.one().getInt(0), i);
+            // the 5th row crossed the threshold, so the second page is being fetched in the background
+            rs.fetchMoreResults().get();
+            assertEquals(rs.getAvailableWithoutFetching(), 15);
+
+            // no more than one page is ever buffered in advance
+            for (int i = 5; i < 10; i++)
+                assertEquals(rs.one().getInt(0), i);
+            assertEquals(rs.getAvailableWithoutFetching(), 10);
+
+            for (int i = 10; i < 100; i++)
+                assertEquals(rs.one().getInt(0), i);
+            assertTrue(rs.isExhausted());
+            assertTrue(rs.isFullyFetched());
+        } catch (UnsupportedFeatureException e) {
+            // This is expected when testing the protocol v1
+            assertEquals(cluster().getConfiguration().getProtocolOptions().getProtocolVersion(), ProtocolVersion.V1);
+        }
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameCompressorTest {
+
+    private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+    @DataProvider(name = "compressors")
+    public static Object[][] compressors() {
+        return new Object[][]{
+                {FrameCompressor.SnappyCompressor.instance},
+                {FrameCompressor.LZ4Compressor.instance},
+                {FrameCompressor.LZ4Compressor.highCompressionInstance}
+        };
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_round_trip_direct_buffer(FrameCompressor compressor) throws Exception {
+        byte[] bytes = sampleBytes(10000);
+        ByteBuf body = ALLOCATOR.directBuffer(bytes.length);
+        body.writeBytes(bytes);
+        should_round_trip(compressor, body, bytes);
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_round_trip_heap_buffer(FrameCompressor compressor) throws Exception {
+        byte[] bytes = sampleBytes(10000);
+        should_round_trip(compressor, Unpooled.wrappedBuffer(bytes), bytes);
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_round_trip_composite_buffer(FrameCompressor compressor) throws Exception {
+        byte[] bytes = sampleBytes(10000);
+        ByteBuf body = Unpooled.wrappedBuffer(
+                Unpooled.wrappedBuffer(bytes, 0, 5000),
+                Unpooled.wrappedBuffer(bytes, 5000, 5000));
+        should_round_trip(compressor, body, bytes);
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_round_trip_buffer_with_non_zero_reader_index(FrameCompressor compressor) throws Exception {
+        byte[] bytes = sampleBytes(10000);
+        ByteBuf body = ALLOCATOR.directBuffer(bytes.length + 10);
+        body.writeBytes(new byte[10]);
+        body.writeBytes(bytes);
+        body.skipBytes(10);
+        should_round_trip(compressor, body, bytes);
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_round_trip_empty_buffer(FrameCompressor compressor) throws Exception {
+        should_round_trip(compressor, ALLOCATOR.directBuffer(0), new byte[0]);
+    }
+
+    @Test(groups = "unit")
+    public void should_decompress_lz4_high_compression_output_with_regular_lz4() throws Exception {
+        byte[] bytes = sampleBytes(10000);
+        ByteBuf body = Unpooled.wrappedBuffer(bytes);
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 0,
+                EnumSet.of(Frame.Header.Flag.COMPRESSED), body);
+
+        Frame compressed = FrameCompressor.LZ4Compressor.highCompressionInstance.compress(ALLOCATOR, frame);
+        Frame decompressed = FrameCompressor.LZ4Compressor.instance.decompress(ALLOCATOR, compressed);
+        compressed.body.release();
+
+        byte[] actual = new byte[decompressed.body.readableBytes()];
+        decompressed.body.readBytes(actual);
+        decompressed.body.release();
+        assertThat(actual).isEqualTo(bytes);
+    }
+
+    @Test(groups = "unit")
+    public void should_compress_better_with_lz4_high_compression() throws Exception {
+        byte[] bytes = sampleBytes(100000);
+        int snappy = compressedSize(FrameCompressor.SnappyCompressor.instance, bytes);
+        int lz4 = compressedSize(FrameCompressor.LZ4Compressor.instance, bytes);
+        int lz4hc = compressedSize(FrameCompressor.LZ4Compressor.highCompressionInstance, bytes);
+        assertThat(lz4hc).isLessThan(lz4);
+        assertThat(lz4hc).isLessThan(snappy);
+    }
+
+    private static int compressedSize(FrameCompressor compressor, byte[] bytes) throws Exception {
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 0,
+                EnumSet.of(Frame.Header.Flag.COMPRESSED), Unpooled.wrappedBuffer(bytes));
+        Frame compressed = compressor.compress(ALLOCATOR, frame);
+        int size = compressed.body.readableBytes();
+        compressed.body.release();
+        return size;
+    }
+
+    @Test(groups = "unit")
+    public void should_not_compress_bodies_below_threshold() {
+        ProtocolOptions options = new ProtocolOptions().setCompressionThreshold(100);
+        Frame.Compressor compressor = new Frame.Compressor(FrameCompressor.LZ4Compressor.instance, options, null);
+
+        assertThat(compressor.shouldCompress(99)).isFalse();
+        assertThat(compressor.shouldCompress(100)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_always_compress_if_adaptive_compression_disabled() {
+        ProtocolOptions options = new ProtocolOptions();
+        Frame.Compressor compressor = new Frame.Compressor(FrameCompressor.LZ4Compressor.instance, options, null);
+
+        compressor.onCompressed(100, 110);
+        assertThat(compressor.compressing).isTrue();
+        assertThat(compressor.shouldCompress(100)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_disable_and_reenable_compression_based_on_ratio() {
+        ProtocolOptions options = new ProtocolOptions().setAdaptiveCompressionRatio(0.8);
+        Frame.Compressor compressor = new Frame.Compressor(FrameCompressor.LZ4Compressor.instance, options, null);
+
+        // Compressible workload
+        compressor.onCompressed(1000, 300);
+        assertThat(compressor.compressing).isTrue();
+
+        // Workload becomes incompressible: the moving average eventually crosses the threshold
+        for (int i = 0; i < 10; i++)
+            compressor.onCompressed(1000, 1000);
+        assertThat(compressor.averageRatio).isGreaterThan(0.8);
+        assertThat(compressor.compressing).isFalse();
+
+        // Only one frame out of PROBE_INTERVAL gets compressed
+        int compressed = 0;
+        for (int i = 0; i < Frame.Compressor.PROBE_INTERVAL * 3; i++) {
+            if (compressor.shouldCompress(1000))
+                compressed += 1;
+        }
+        assertThat(compressed).isEqualTo(3);
+
+        // Workload becomes compressible again: probes re-enable compression
+        for (int i = 0; i < 10 && !compressor.compressing; i++)
+            compressor.onCompressed(1000, 100);
+        assertThat(compressor.compressing).isTrue();
+        assertThat(compressor.shouldCompress(1000)).isTrue();
+    }
+
+    private void should_round_trip(FrameCompressor compressor, ByteBuf body, byte[] expected) throws Exception {
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 0,
+                EnumSet.of(Frame.Header.Flag.COMPRESSED), body);
+
+        Frame compressed = compressor.compress(ALLOCATOR, frame);
+        body.release();
+        assertThat(compressed.body.isDirect()).isTrue();
+
+        Frame decompressed = compressor.decompress(ALLOCATOR, compressed);
+        assertThat(compressed.body.release()).isTrue();
+        assertThat(decompressed.body.isDirect()).isTrue();
+
+        byte[] actual = new byte[decompressed.body.readableBytes()];
+        decompressed.body.readBytes(actual);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(decompressed.body.release()).isTrue();
+    }
+
+    private static byte[] sampleBytes(int length) {
+        // Compressible but not trivial
+        Random random = new Random(42);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) ('a' + random.nextInt(4));
+        return bytes;
+    }
+}
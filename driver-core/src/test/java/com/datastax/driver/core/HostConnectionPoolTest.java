@@ -147,6 +147,78 @@ public class HostConnectionPoolTest extends ScassandraTestBase.PerClassCluster {
         }
     }
 
+    /**
+     * Ensures that an enqueued request times out on its own deadline, even if it was enqueued behind requests with a
+     * longer timeout.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_reject_if_enqueued_behind_longer_timeout_and_timeout_reached() {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> allRequests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            allRequests.addAll(MockRequest.sendMany(128, pool));
+
+            // pool is now full, these requests will be enqueued
+            MockRequest slowBorrow = MockRequest.send(pool, 10000, 128);
+            MockRequest failedBorrow = MockRequest.send(pool, 100, 128);
+            try {
+                failedBorrow.getConnection();
+                fail("Expected a BusyPoolException");
+            } catch (BusyPoolException e) {
+                assertThat(e).hasMessageContaining("timed out");
+            }
+            assertThat(slowBorrow.connectionFuture.isDone()).isFalse();
+
+            // the first request still gets the next available connection
+            MockRequest.completeMany(1, allRequests);
+            assertThat(slowBorrow.getConnection()).isNotNull();
+            allRequests.add(slowBorrow);
+        } finally {
+            MockRequest.completeAll(allRequests);
+            cluster.close();
+        }
+    }
+
+    /**
+     * Ensures that enqueued requests are served in order when connections are returned, and that the time they spent
+     * waiting is recorded in {@link Metrics#getPoolWaitTimer()}.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_serve_enqueued_requests_in_order_and_record_wait_time() {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> allRequests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            Connection connection = pool.connections.get(0);
+            allRequests.addAll(MockRequest.sendMany(128, pool));
+            long waitsBefore = cluster.getMetrics().getPoolWaitTimer().getCount();
+
+            List<MockRequest> queuedRequests = MockRequest.sendMany(3, pool, 128);
+            for (MockRequest queuedRequest : queuedRequests)
+                assertThat(queuedRequest.connectionFuture.isDone()).isFalse();
+
+            MockRequest.completeMany(2, allRequests);
+            assertThat(queuedRequests.get(0).getConnection()).isEqualTo(connection);
+            assertThat(queuedRequests.get(1).getConnection()).isEqualTo(connection);
+            assertThat(queuedRequests.get(2).connectionFuture.isDone()).isFalse();
+            assertThat(connection.inFlight.get()).isEqualTo(128);
+            assertThat(cluster.getMetrics().getPoolWaitTimer().getCount()).isEqualTo(waitsBefore + 2);
+
+            MockRequest.completeMany(1, allRequests);
+            assertThat(queuedRequests.get(2).getConnection()).isEqualTo(connection);
+            assertThat(cluster.getMetrics().getPoolWaitTimer().getCount()).isEqualTo(waitsBefore + 3);
+            allRequests.addAll(queuedRequests);
+        } finally {
+            MockRequest.completeAll(allRequests);
+            cluster.close();
+        }
+    }
+
     /**
      * Validates that if a borrow request is enqueued into a pool for a Host that is currently
      * within the window of reconnecting after an error that the future tied to that query times out
@@ -448,6 +520,41 @@ public class HostConnectionPoolTest extends ScassandraTestBase.PerClassCluster {
         }
     }
 
+    /**
+     * Ensures that with the power-of-two-choices selection strategy, borrowConnection spreads requests across all
+     * connections, spills over to non-selected connections when the random choices are full, and tracks the total
+     * number of in-flight requests from the connections.
+     */
+    @Test(groups = "short")
+    public void should_fill_all_connections_with_two_random_choices() {
+        Cluster cluster = createClusterBuilder()
+                .withPoolingOptions(new PoolingOptions()
+                        .setConnectionSelection(PoolingOptions.ConnectionSelection.POWER_OF_TWO_CHOICES))
+                .build();
+        List<MockRequest> allRequests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 4, 4);
+            assertThat(pool.connections.size()).isEqualTo(4);
+
+            // fill connections; no request should be rejected even though each choice is random
+            allRequests.addAll(MockRequest.sendMany(4 * 128, pool));
+            for (MockRequest request : allRequests)
+                assertThat(request.getConnection()).isNotNull();
+            for (Connection connection : pool.connections)
+                assertThat(connection.inFlight.get()).isEqualTo(128);
+            assertThat(pool.totalInFlight()).isEqualTo(4 * 128);
+
+            MockRequest failedBorrow = MockRequest.send(pool);
+            try {
+                failedBorrow.getConnection();
+                fail("Expected a BusyPoolException");
+            } catch (BusyPoolException e) { /*expected*/}
+        } finally {
+            MockRequest.completeAll(allRequests);
+            cluster.close();
+        }
+    }
+
     /**
      * Ensures that if the core connection pool is full that borrowConnection will create and use a new connection.
      *
@@ -0,0 +1,53 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestThrottlerTest {
+
+    @Test(groups = "unit")
+    public void should_allow_burst_then_throttle_to_rate() {
+        // 10 permits per second, i.e. one every 100 ms, with a burst of 3
+        RequestThrottler throttler = new RequestThrottler(10, 3);
+        long now = System.nanoTime();
+
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isFalse();
+
+        // one permit is available every 100 ms
+        now += TimeUnit.MILLISECONDS.toNanos(100);
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isFalse();
+
+        // after a long pause, the bucket is full again but does not exceed the burst
+        now += TimeUnit.SECONDS.toNanos(10);
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_throttle_to_rate_without_burst() {
+        RequestThrottler throttler = new RequestThrottler(1000, 1);
+        long now = System.nanoTime();
+
+        assertThat(throttler.tryAcquire(now)).isTrue();
+        assertThat(throttler.tryAcquire(now)).isFalse();
+        now += TimeUnit.MICROSECONDS.toNanos(500);
+        assertThat(throttler.tryAcquire(now)).isFalse();
+        now += TimeUnit.MICROSECONDS.toNanos(500);
+        assertThat(throttler.tryAcquire(now)).isTrue();
+    }
+}
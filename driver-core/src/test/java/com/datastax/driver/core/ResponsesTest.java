@@ -0,0 +1,238 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.Responses.Result.Rows;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ResponsesTest {
+
+    private static final int GLOBAL_TABLES_SPEC_FLAG = 1;
+    private static final int NO_METADATA_FLAG = 1 << 2;
+
+    @Test(groups = "unit")
+    public void should_decode_rows_lazily() {
+        byte[][][] rows = new byte[][][]{
+                {bytes(1, 2, 3), null, bytes()},
+                {bytes(4), bytes(5, 6), null}
+        };
+        ByteBuf body = encodeRows(rows);
+        // trailing bytes that do not belong to the page
+        body.writeInt(42);
+
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true, false);
+
+        assertThat(result.data).hasSize(2);
+        for (byte[][] expected : rows) {
+            List<ByteBuffer> row = result.data.poll();
+            assertThat(row).hasSize(expected.length);
+            for (int i = 0; i < expected.length; i++) {
+                ByteBuffer value = row.get(i);
+                if (expected[i] == null) {
+                    assertThat(value).isNull();
+                } else {
+                    assertThat(value.position()).isEqualTo(0);
+                    assertThat(value.remaining()).isEqualTo(expected[i].length);
+                    byte[] actual = new byte[value.remaining()];
+                    value.duplicate().get(actual);
+                    assertThat(actual).isEqualTo(expected[i]);
+                }
+            }
+        }
+        assertThat(body.readableBytes()).isEqualTo(4);
+        assertThat(body.readInt()).isEqualTo(42);
+    }
+
+    @Test(groups = "unit")
+    public void should_return_independent_views_of_row_values() {
+        ByteBuf body = encodeRows(new byte[][][]{{bytes(1, 2, 3)}});
+
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true, false);
+        List<ByteBuffer> row = result.data.poll();
+
+        // consuming a value must not affect subsequent accesses
+        row.get(0).get();
+        assertThat(row.get(0).remaining()).isEqualTo(3);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_each_value_into_its_own_array_by_default() {
+        ByteBuf body = encodeRows(new byte[][][]{{bytes(1, 2, 3), bytes(4, 5)}});
+
+        Rows result = (Rows) Rows.subcodec.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE);
+        List<ByteBuffer> row = result.data.poll();
+
+        // code that uses the backing array of a value directly must keep working
+        assertThat(row.get(0).arrayOffset()).isEqualTo(0);
+        assertThat(row.get(0).array()).isEqualTo(bytes(1, 2, 3));
+        assertThat(row.get(1).array()).isEqualTo(bytes(4, 5));
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_empty_page() {
+        ByteBuf body = encodeRows(new byte[0][][]);
+
+        Rows result = (Rows) Rows.subcodec.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE);
+
+        assertThat(result.data).isEmpty();
+        assertThat(body.isReadable()).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_read_rows_from_retained_buffer_with_zero_copy_blobs() {
+        ByteBuf body = Unpooled.directBuffer().writeBytes(encodeRows(new byte[][][]{
+                {bytes(1, 2, 3), null},
+                {bytes(4), bytes(5, 6)}
+        }));
+
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true);
+        // what the protocol decoder does once the response is decoded
+        body.release();
+
+        assertThat(body.refCnt()).isEqualTo(1);
+        assertThat(result.data).isInstanceOf(Rows.RetainedRows.class);
+        List<ByteBuffer> first = result.data.poll();
+        List<ByteBuffer> second = result.data.peek();
+        ByteBuffer value = first.get(0);
+        assertThat(value.isReadOnly()).isTrue();
+        assertThat(value.isDirect()).isTrue();
+        assertThat(value).isEqualTo(ByteBuffer.wrap(bytes(1, 2, 3)));
+        assertThat(first.get(1)).isNull();
+        assertThat(second.get(1)).isEqualTo(ByteBuffer.wrap(bytes(5, 6)));
+
+        Rows.release(result.data);
+        Rows.release(result.data);
+        assertThat(body.refCnt()).isEqualTo(0);
+        try {
+            second.get(0);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_copy_rows_without_blobs_with_zero_copy_blobs() {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(GLOBAL_TABLES_SPEC_FLAG);
+        body.writeInt(1);
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString("table", body);
+        CBUtil.writeString("c", body);
+        body.writeShort(DataType.Name.INT.protocolId);
+        body.writeInt(1);
+        body.writeInt(4);
+        body.writeInt(42);
+
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true);
+
+        assertThat(result.data).isNotInstanceOf(Rows.RetainedRows.class);
+        assertThat(body.refCnt()).isEqualTo(1);
+        assertThat(result.data.poll().get(0).getInt()).isEqualTo(42);
+    }
+
+    @Test(groups = "unit")
+    public void should_keep_zero_copy_values_valid_until_released_explicitly() throws Exception {
+        ByteBuf body = Unpooled.directBuffer().writeBytes(encodeRows(new byte[][][]{{bytes(1, 2, 3)}}));
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true);
+        body.release();
+        Queue<List<ByteBuffer>> data = result.takeData(true);
+        result.releaseUnclaimed();
+
+        // only keep the value: the rows and the response become unreachable
+        ByteBuffer value = data.poll().get(0);
+        WeakReference<Rows> resultRef = new WeakReference<Rows>(result);
+        result = null;
+        data = null;
+        for (int i = 0; i < 10 && resultRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(resultRef.get()).isNull();
+
+        // retaining another page must not reuse the memory of the first one
+        ByteBuf otherBody = Unpooled.directBuffer().writeBytes(encodeRows(new byte[][][]{{bytes(7, 8, 9)}}));
+        Rows other = Rows.decode(otherBody, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true);
+        otherBody.release();
+        Queue<List<ByteBuffer>> otherData = other.takeData(true);
+
+        assertThat(body.refCnt()).isEqualTo(1);
+        assertThat(value).isEqualTo(ByteBuffer.wrap(bytes(1, 2, 3)));
+
+        Rows.release(otherData);
+        assertThat(otherBody.refCnt()).isEqualTo(0);
+        assertThat(body.refCnt()).isEqualTo(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_copy_zero_copy_rows_unless_ownership_is_taken() {
+        ByteBuf body = Unpooled.directBuffer().writeBytes(encodeRows(new byte[][][]{{bytes(1, 2, 3), null}}));
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true);
+        body.release();
+
+        Queue<List<ByteBuffer>> copy = result.takeData(false);
+        result.releaseUnclaimed();
+
+        assertThat(body.refCnt()).isEqualTo(0);
+        assertThat(Rows.isRetained(copy)).isFalse();
+        List<ByteBuffer> row = copy.poll();
+        // copies behave like regular rows
+        assertThat(row.get(0).array()).isEqualTo(bytes(1, 2, 3));
+        assertThat(row.get(1)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_release_zero_copy_rows_whose_ownership_was_taken() {
+        ByteBuf body = Unpooled.directBuffer().writeBytes(encodeRows(new byte[][][]{{bytes(1, 2, 3)}}));
+        Rows result = Rows.decode(body, ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE, true);
+        body.release();
+
+        Queue<List<ByteBuffer>> data = result.takeData(true);
+        result.releaseUnclaimed();
+
+        assertThat(body.refCnt()).isEqualTo(1);
+        assertThat(data.peek().get(0)).isEqualTo(ByteBuffer.wrap(bytes(1, 2, 3)));
+        Rows.release(data);
+        assertThat(body.refCnt()).isEqualTo(0);
+    }
+
+    private static ByteBuf encodeRows(byte[][][] rows) {
+        int columnCount = rows.length == 0 ? 1 : rows[0].length;
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(NO_METADATA_FLAG);
+        body.writeInt(columnCount);
+        body.writeInt(rows.length);
+        for (byte[][] row : rows) {
+            for (byte[] value : row) {
+                if (value == null) {
+                    body.writeInt(-1);
+                } else {
+                    body.writeInt(value.length);
+                    body.writeBytes(value);
+                }
+            }
+        }
+        return body;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++)
+            bytes[i] = (byte) values[i];
+        return bytes;
+    }
+}
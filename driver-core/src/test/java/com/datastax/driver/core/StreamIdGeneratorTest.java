@@ -8,6 +8,11 @@ package com.datastax.driver.core;
 
 import org.testng.annotations.Test;
 
+import java.util.BitSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.testng.Assert.assertEquals;
 
 public class StreamIdGeneratorTest {
@@ -35,4 +40,73 @@ public class StreamIdGeneratorTest {
 
         assertEquals(generator.next(), -1);
     }
+
+    @Test(groups = "unit")
+    public void should_use_striped_generator_for_v3_and_above() {
+        assertThat(StreamIdGenerator.newInstance(ProtocolVersion.V2)).isInstanceOf(StreamIdGenerator.RoundRobin.class);
+        assertThat(StreamIdGenerator.newInstance(ProtocolVersion.V3)).isInstanceOf(StreamIdGenerator.Striped.class);
+        assertThat(StreamIdGenerator.newInstance(ProtocolVersion.V4)).isInstanceOf(StreamIdGenerator.Striped.class);
+    }
+
+    @Test(groups = "unit")
+    public void should_exhaust_and_reuse_ids_with_striped_generator() {
+        StreamIdGenerator generator = new StreamIdGenerator.Striped(2, 8);
+        BitSet borrowed = new BitSet();
+        for (int i = 0; i < StreamIdGenerator.MAX_STREAM_PER_CONNECTION_V3; i++) {
+            int id = generator.next();
+            assertThat(id).isBetween(0, StreamIdGenerator.MAX_STREAM_PER_CONNECTION_V3 - 1);
+            assertThat(borrowed.get(id)).isFalse();
+            borrowed.set(id);
+        }
+        assertThat(generator.next()).isEqualTo(-1);
+
+        generator.release(12345);
+        assertThat(generator.next()).isEqualTo(12345);
+        assertThat(generator.next()).isEqualTo(-1);
+    }
+
+    @Test(groups = "unit")
+    public void should_never_hand_out_same_id_concurrently_with_striped_generator() throws Exception {
+        should_never_hand_out_same_id_concurrently(new StreamIdGenerator.Striped(2, 8), 8);
+    }
+
+    @Test(groups = "unit")
+    public void should_never_hand_out_same_id_concurrently_with_round_robin_generator() throws Exception {
+        should_never_hand_out_same_id_concurrently(new StreamIdGenerator.RoundRobin(2), 8);
+    }
+
+    private void should_never_hand_out_same_id_concurrently(final StreamIdGenerator generator, int threads) throws Exception {
+        final AtomicIntegerArray owners = new AtomicIntegerArray(StreamIdGenerator.MAX_STREAM_PER_CONNECTION_V3);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        int[] ids = new int[100];
+                        for (int round = 0; round < 1000; round++) {
+                            for (int i = 0; i < ids.length; i++) {
+                                ids[i] = generator.next();
+                                assertThat(ids[i]).isNotEqualTo(-1);
+                                assertThat(owners.compareAndSet(ids[i], 0, 1)).isTrue();
+                            }
+                            for (int id : ids) {
+                                assertThat(owners.compareAndSet(id, 1, 0)).isTrue();
+                                generator.release(id);
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
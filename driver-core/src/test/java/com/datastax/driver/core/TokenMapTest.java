@@ -0,0 +1,161 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TokenMapTest extends AbstractReplicationStrategyTest {
+
+    private final Host host1 = host(socketAddress("127.0.0.1"));
+    private final Host host2 = host(socketAddress("127.0.0.2"));
+    private final Host host3 = host(socketAddress("127.0.0.3"));
+
+    @Test(groups = "unit")
+    public void should_find_murmur3_replicas_of_partition_keys_and_tokens() {
+        Metadata metadata = newMetadata(ImmutableMap.<Host, Set<Token>>of(
+                host1, ImmutableSet.of(token("-3000000000000000000")),
+                host2, ImmutableSet.of(token("0")),
+                host3, ImmutableSet.of(token("3000000000000000000"))));
+
+        // token equal to a ring token
+        assertThat(metadata.getReplicas("ks", token("0"))).containsOnly(host2, host3);
+        // token between two ring tokens: replicas of the next one
+        assertThat(metadata.getReplicas("ks", token("-5"))).containsOnly(host2, host3);
+        assertThat(metadata.getReplicas("ks", token("5"))).containsOnly(host3, host1);
+        // token after the last ring token: wraps around
+        assertThat(metadata.getReplicas("ks", token("3000000000000000001"))).containsOnly(host1, host2);
+        assertThat(metadata.getReplicas("ks", token("-9223372036854775808"))).containsOnly(host1, host2);
+
+        // partition keys are hashed to the same replicas as their token
+        for (int i = 0; i < 100; i++) {
+            ByteBuffer key = TypeCodec.cint().serialize(i, ProtocolVersion.NEWEST_SUPPORTED);
+            Token token = partitioner().hash(key);
+            assertThat(metadata.getReplicas("ks", key)).isEqualTo(metadata.getReplicas("ks", token));
+            assertThat(key.position()).isEqualTo(0);
+        }
+
+        // keyspaces with the same replication share their replicas
+        assertThat(metadata.getReplicas("ks2", token("5"))).isSameAs(metadata.getReplicas("ks", token("5")));
+        assertThat(metadata.getReplicas("unknown", token("5"))).isEmpty();
+
+        metadata.removeKeyspace("ks");
+        assertThat(metadata.getReplicas("ks", token("5"))).isEmpty();
+        assertThat(metadata.getReplicas("ks2", token("5"))).containsOnly(host3, host1);
+    }
+
+    @Test(groups = "unit")
+    public void should_return_no_replicas_if_ring_is_empty() {
+        Metadata metadata = newMetadata(Collections.<Host, Set<Token>>emptyMap());
+        assertThat(metadata.getReplicas("ks", token("5"))).isEmpty();
+        assertThat(metadata.getReplicas("ks", ByteBuffer.wrap(new byte[]{1, 2, 3}))).isEmpty();
+    }
+
+    @Test(groups = "unit")
+    public void should_reuse_replicas_when_ring_does_not_change() {
+        Map<Host, Set<Token>> tokens = ImmutableMap.<Host, Set<Token>>of(
+                host1, ImmutableSet.of(token("-3000000000000000000")),
+                host2, ImmutableSet.of(token("0")),
+                host3, ImmutableSet.of(token("3000000000000000000")));
+        Metadata metadata = newMetadata(tokens);
+        Set<Host> replicas = metadata.getReplicas("ks", token("5"));
+        Set<TokenRange> ranges = metadata.getTokenRanges("ks", host1);
+
+        // schema change that does not affect existing keyspaces
+        metadata.keyspaces.put("ks3", new KeyspaceMetadata("ks3", true, ImmutableMap.of(
+                "class", "org.apache.cassandra.locator.SimpleStrategy",
+                "replication_factor", "3")));
+        metadata.rebuildTokenMap();
+        assertThat(metadata.getReplicas("ks", token("5"))).isSameAs(replicas);
+        assertThat(metadata.getTokenRanges("ks", host1)).isSameAs(ranges);
+        assertThat(metadata.getReplicas("ks3", token("5"))).containsOnly(host1, host2, host3);
+
+        // node refresh that reports the same tokens
+        metadata.rebuildTokenMap(partitioner(), new HashMap<Host, Set<Token>>(tokens));
+        assertThat(metadata.getReplicas("ks", token("5"))).isSameAs(replicas);
+        assertThat(metadata.getTokenRanges("ks", host1)).isSameAs(ranges);
+
+        // new node: everything is recomputed
+        Host host4 = host(socketAddress("127.0.0.4"));
+        Map<Host, Set<Token>> newTokens = new HashMap<Host, Set<Token>>(tokens);
+        newTokens.put(host4, ImmutableSet.of(token("1000000000000000000")));
+        metadata.rebuildTokenMap(partitioner(), newTokens);
+        assertThat(metadata.getReplicas("ks", token("5"))).containsOnly(host4, host3);
+        assertThat(metadata.getTokenRanges("ks", host1)).isNotSameAs(ranges);
+    }
+
+    @Test(groups = "unit")
+    public void should_compute_same_replicas_when_strategies_are_computed_in_parallel() {
+        Random random = new Random(42);
+        Map<Host, Set<Token>> tokens = new HashMap<Host, Set<Token>>();
+        for (int i = 1; i <= 6; i++) {
+            Host host = host(socketAddress("127.0.0." + i), (i % 2 == 0) ? "dc1" : "dc2", "rack" + (i % 3));
+            Set<Token> hostTokens = new HashSet<Token>();
+            for (int j = 0; j < 16; j++)
+                hostTokens.add(token(Long.toString(random.nextLong())));
+            tokens.put(host, hostTokens);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Cluster.Manager manager = mock(Cluster.Manager.class);
+            manager.blockingExecutor = MoreExecutors.listeningDecorator(executor);
+            Metadata parallel = newMetadataWithStrategies(manager, tokens);
+            Metadata sequential = newMetadataWithStrategies(mock(Cluster.Manager.class), tokens);
+
+            for (String keyspace : sequential.keyspaces.keySet()) {
+                for (int i = 0; i < 100; i++) {
+                    Token token = token(Long.toString(random.nextLong()));
+                    assertThat(parallel.getReplicas(keyspace, token)).isEqualTo(sequential.getReplicas(keyspace, token));
+                }
+                for (Host host : tokens.keySet())
+                    assertThat(parallel.getTokenRanges(keyspace, host)).isEqualTo(sequential.getTokenRanges(keyspace, host));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Metadata newMetadataWithStrategies(Cluster.Manager manager, Map<Host, Set<Token>> tokens) {
+        Metadata metadata = new Metadata(manager);
+        for (int rf = 1; rf <= 3; rf++)
+            metadata.keyspaces.put("simple" + rf, new KeyspaceMetadata("simple" + rf, true, ImmutableMap.of(
+                    "class", "org.apache.cassandra.locator.SimpleStrategy",
+                    "replication_factor", Integer.toString(rf))));
+        metadata.keyspaces.put("nts1", new KeyspaceMetadata("nts1", true, ImmutableMap.of(
+                "class", "org.apache.cassandra.locator.NetworkTopologyStrategy",
+                "dc1", "2", "dc2", "1")));
+        metadata.keyspaces.put("nts2", new KeyspaceMetadata("nts2", true, ImmutableMap.of(
+                "class", "org.apache.cassandra.locator.NetworkTopologyStrategy",
+                "dc1", "3", "dc2", "2")));
+        metadata.keyspaces.put("local", new KeyspaceMetadata("local", true, ImmutableMap.of(
+                "class", "org.apache.cassandra.locator.LocalStrategy")));
+        metadata.rebuildTokenMap(partitioner(), tokens);
+        return metadata;
+    }
+
+    private Metadata newMetadata(Map<Host, Set<Token>> tokens) {
+        Metadata metadata = new Metadata(mock(Cluster.Manager.class));
+        Map<String, String> replication = ImmutableMap.of(
+                "class", "org.apache.cassandra.locator.SimpleStrategy",
+                "replication_factor", "2");
+        metadata.keyspaces.put("ks", new KeyspaceMetadata("ks", true, replication));
+        metadata.keyspaces.put("ks2", new KeyspaceMetadata("ks2", true, replication));
+        metadata.rebuildTokenMap(partitioner(), tokens);
+        return metadata;
+    }
+}
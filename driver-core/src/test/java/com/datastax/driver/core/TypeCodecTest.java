@@ -16,6 +16,10 @@ import com.google.common.collect.Lists;
 import com.google.common.reflect.TypeToken;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.util.*;
 
@@ -271,6 +275,169 @@ public class TypeCodecTest {
                 .accepts(42.0D);
     }
 
+    @Test(groups = "unit")
+    public void should_serialize_and_deserialize_collections_of_fixed_size_numbers() {
+        for (ProtocolVersion version : new ProtocolVersion[]{ProtocolVersion.V2, V3}) {
+            TypeCodec<List<Integer>> listCodec = TypeCodec.list(TypeCodec.cint());
+            List<Integer> list = newArrayList(1, -2, Integer.MAX_VALUE);
+            ByteBuffer bytes = listCodec.serialize(list, version);
+            assertThat(bytes).isEqualTo(pack(version, TypeCodec.cint(), list));
+            List<Integer> deserialized = listCodec.deserialize(bytes, version);
+            assertThat(deserialized).isEqualTo(list);
+            // primitive-backed lists are mutable and can be serialized back
+            deserialized.add(1, 42);
+            deserialized.remove(0);
+            deserialized.set(0, 43);
+            assertThat(deserialized).containsExactly(43, -2, Integer.MAX_VALUE);
+            assertThat(listCodec.serialize(deserialized, version)).isEqualTo(pack(version, TypeCodec.cint(), deserialized));
+
+            TypeCodec<Set<Double>> setCodec = TypeCodec.set(TypeCodec.cdouble());
+            Set<Double> set = new LinkedHashSet<Double>(newArrayList(1.5D, -0.0D, Double.NaN));
+            bytes = setCodec.serialize(set, version);
+            assertThat(bytes).isEqualTo(pack(version, TypeCodec.cdouble(), set));
+            assertThat(setCodec.deserialize(bytes, version)).containsExactly(1.5D, -0.0D, Double.NaN);
+
+            TypeCodec<Map<Long, String>> mapCodec = TypeCodec.map(TypeCodec.bigint(), TypeCodec.varchar());
+            Map<Long, String> map = new LinkedHashMap<Long, String>();
+            map.put(1L, "foo");
+            map.put(Long.MIN_VALUE, "bar");
+            bytes = mapCodec.serialize(map, version);
+            assertThat(bytes).isEqualTo(pack(version, map, TypeCodec.bigint(), TypeCodec.varchar()));
+            assertThat(mapCodec.deserialize(bytes, version)).isEqualTo(map);
+
+            TypeCodec<Map<Integer, Float>> primitiveMapCodec = TypeCodec.map(TypeCodec.cint(), TypeCodec.cfloat());
+            Map<Integer, Float> primitiveMap = new LinkedHashMap<Integer, Float>();
+            primitiveMap.put(1, 1.5F);
+            primitiveMap.put(2, -1F);
+            bytes = primitiveMapCodec.serialize(primitiveMap, version);
+            assertThat(bytes).isEqualTo(pack(version, primitiveMap, TypeCodec.cint(), TypeCodec.cfloat()));
+            assertThat(primitiveMapCodec.deserialize(bytes, version)).isEqualTo(primitiveMap);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_java_serialize_lists_of_fixed_size_numbers() throws Exception {
+        for (TypeCodec<?> eltCodec : new TypeCodec<?>[]{TypeCodec.cint(), TypeCodec.bigint(), TypeCodec.cfloat(), TypeCodec.cdouble()}) {
+            @SuppressWarnings("unchecked")
+            TypeCodec<List<Object>> listCodec = TypeCodec.list((TypeCodec<Object>) eltCodec);
+            List<Object> list = listCodec.parse("[1, 2, 3]");
+            List<Object> deserialized = listCodec.deserialize(listCodec.serialize(list, V3), V3);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(deserialized);
+            out.close();
+            Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+            assertThat(copy).isInstanceOf(ArrayList.class).isEqualTo(list);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_deserialize_empty_elements_of_collections_of_fixed_size_numbers() {
+        ByteBuffer bytes = CodecUtils.pack(new ByteBuffer[]{
+                TypeCodec.cint().serialize(1, V3), ByteBuffer.allocate(0)}, 2, V3);
+        assertThat(TypeCodec.list(TypeCodec.cint()).deserialize(bytes, V3)).containsExactly(1, null);
+        assertThat(TypeCodec.set(TypeCodec.cint()).deserialize(bytes, V3)).containsExactly(1, null);
+    }
+
+    @Test(groups = "unit")
+    public void should_reject_invalid_elements_of_collections_of_fixed_size_numbers() {
+        try {
+            TypeCodec.list(TypeCodec.cint()).serialize(Arrays.asList(1, null), V3);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            assertThat(e).hasMessage("Collection elements cannot be null");
+        }
+        try {
+            TypeCodec<List<Long>> codec = TypeCodec.list(TypeCodec.bigint());
+            // a list of int deserialized by the driver, passed where a list of bigint is expected
+            List raw = TypeCodec.list(TypeCodec.cint()).deserialize(TypeCodec.list(TypeCodec.cint()).serialize(Arrays.asList(1), V3), V3);
+            @SuppressWarnings("unchecked")
+            List<Long> list = (List<Long>) raw;
+            codec.serialize(list, V3);
+            fail("Expected InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+        try {
+            Map<Integer, String> map = new HashMap<Integer, String>();
+            map.put(1, null);
+            TypeCodec.map(TypeCodec.cint(), TypeCodec.varchar()).serialize(map, V3);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            assertThat(e).hasMessage("Map values cannot be null");
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_serialize_nested_udts_and_tuples_in_place() {
+        CodecRegistry codecRegistry = new CodecRegistry();
+        UserType udt = new UserType("ks", "t", false, Arrays.asList(
+                new UserType.Field("t", DataType.text()),
+                new UserType.Field("i", DataType.cint()),
+                new UserType.Field("l", DataType.list(DataType.cint()))
+        ), V3, codecRegistry);
+        UDTValue udtValue = udt.newValue().setString("t", "foo").setList("l", newArrayList(1, 2));
+        ByteBuffer udtBytes = fields(
+                TypeCodec.varchar().serialize("foo", V3),
+                null,
+                TypeCodec.list(TypeCodec.cint()).serialize(newArrayList(1, 2), V3));
+        TypeCodec<UDTValue> udtCodec = codecRegistry.codecFor(udt, UDTValue.class);
+        assertThat(udtCodec.serialize(udtValue, V3)).isEqualTo(udtBytes);
+
+        Map<Integer, UDTValue> map = new LinkedHashMap<Integer, UDTValue>();
+        map.put(1, udtValue);
+        map.put(2, udt.newValue());
+        TypeCodec<Map<Integer, UDTValue>> mapCodec = TypeCodec.map(TypeCodec.cint(), udtCodec);
+        ByteBuffer bytes = mapCodec.serialize(map, V3);
+        assertThat(bytes).isEqualTo(CodecUtils.pack(new ByteBuffer[]{
+                TypeCodec.cint().serialize(1, V3), udtBytes,
+                TypeCodec.cint().serialize(2, V3), fields(null, null, null)}, 2, V3));
+        assertThat(mapCodec.deserialize(bytes, V3)).isEqualTo(map);
+
+        // a tuple of a smaller type has its missing components serialized as nulls
+        TupleType tupleType = new TupleType(newArrayList(DataType.cint(), DataType.varchar(), DataType.cfloat()), V3, codecRegistry);
+        TupleType smallerType = new TupleType(newArrayList(DataType.cint(), DataType.varchar()), V3, codecRegistry);
+        TypeCodec<List<TupleValue>> listCodec = TypeCodec.list(codecRegistry.codecFor(tupleType, TupleValue.class));
+        List<TupleValue> tuples = newArrayList(tupleType.newValue(1, "a", 1.5F), smallerType.newValue(2, "b"));
+        assertThat(listCodec.serialize(tuples, V3)).isEqualTo(CodecUtils.pack(new ByteBuffer[]{
+                fields(TypeCodec.cint().serialize(1, V3), TypeCodec.varchar().serialize("a", V3), TypeCodec.cfloat().serialize(1.5F, V3)),
+                fields(TypeCodec.cint().serialize(2, V3), TypeCodec.varchar().serialize("b", V3), null)}, 2, V3));
+    }
+
+    private static ByteBuffer fields(ByteBuffer... fields) {
+        int size = 0;
+        for (ByteBuffer field : fields)
+            size += 4 + (field == null ? 0 : field.remaining());
+        ByteBuffer result = ByteBuffer.allocate(size);
+        for (ByteBuffer field : fields) {
+            if (field == null) {
+                result.putInt(-1);
+            } else {
+                result.putInt(field.remaining());
+                result.put(field.duplicate());
+            }
+        }
+        return (ByteBuffer) result.flip();
+    }
+
+    private static <T> ByteBuffer pack(ProtocolVersion version, TypeCodec<T> eltCodec, Collection<T> elements) {
+        List<ByteBuffer> bbs = new ArrayList<ByteBuffer>();
+        for (T element : elements)
+            bbs.add(eltCodec.serialize(element, version));
+        return CodecUtils.pack(bbs.toArray(new ByteBuffer[bbs.size()]), elements.size(), version);
+    }
+
+    private static <K, V> ByteBuffer pack(ProtocolVersion version, Map<K, V> map, TypeCodec<K> keyCodec, TypeCodec<V> valueCodec) {
+        List<ByteBuffer> bbs = new ArrayList<ByteBuffer>();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            bbs.add(keyCodec.serialize(entry.getKey(), version));
+            bbs.add(valueCodec.serialize(entry.getValue(), version));
+        }
+        return CodecUtils.pack(bbs.toArray(new ByteBuffer[bbs.size()]), map.size(), version);
+    }
+
     private class ListVarcharToListListInteger extends TypeCodec<List<List<Integer>>> {
 
         private final TypeCodec<List<String>> codec = TypeCodec.list(TypeCodec.varchar());
@@ -0,0 +1,106 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.*;
+import com.google.common.collect.Lists;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class LatencyAwarePolicyScoringTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private Host host1, host2;
+    private LatencyAwarePolicy policy;
+    private LatencyTracker tracker;
+    private Statement statement = new SimpleStatement("irrelevant");
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        host1 = mock(Host.class);
+        host2 = mock(Host.class);
+        LoadBalancingPolicy childPolicy = mock(LoadBalancingPolicy.class);
+        when(childPolicy.newQueryPlan(anyString(), any(Statement.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return Lists.newArrayList(host1, host2).iterator();
+            }
+        });
+
+        policy = LatencyAwarePolicy.builder(childPolicy)
+                .withMininumMeasurements(10)
+                .withUpdateRate(1, TimeUnit.HOURS)
+                .build();
+        Cluster cluster = mock(Cluster.class);
+        policy.init(cluster, Lists.newArrayList(host1, host2));
+        ArgumentCaptor<LatencyTracker> captor = ArgumentCaptor.forClass(LatencyTracker.class);
+        verify(cluster).register(captor.capture());
+        tracker = captor.getValue();
+    }
+
+    @AfterMethod(groups = "unit", alwaysRun = true)
+    public void teardown() {
+        policy.close();
+    }
+
+    @Test(groups = "unit")
+    public void should_exclude_slow_host_once_scores_are_updated() throws Exception {
+        record(host1, SLOW);
+        record(host2, FAST);
+
+        // scores are only taken into account once the updater has run
+        assertThat(queryPlan()).containsExactly(host1, host2);
+
+        policy.new Updater().run();
+        assertThat(queryPlan()).containsExactly(host2, host1);
+
+        LatencyAwarePolicy.Snapshot.Stats stats = policy.getScoresSnapshot().getStats(host1);
+        assertThat(stats.getMeasurementsCount()).isEqualTo(20);
+        assertThat(stats.getLatencyScore()).isEqualTo(SLOW);
+        assertThat(stats.lastUpdatedSince()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_exclude_host_without_enough_measurements() throws Exception {
+        record(host2, FAST);
+        for (int i = 0; i < 5; i++)
+            recordOnce(host1, SLOW);
+
+        policy.new Updater().run();
+        assertThat(queryPlan()).containsExactly(host1, host2);
+        assertThat(policy.getScoresSnapshot().getStats(host1).getLatencyScore()).isEqualTo(SLOW);
+    }
+
+    private void record(Host host, long latency) throws InterruptedException {
+        for (int i = 0; i < 20; i++)
+            recordOnce(host, latency);
+    }
+
+    private void recordOnce(Host host, long latency) throws InterruptedException {
+        tracker.update(host, statement, null, latency);
+        // make sure the next measurement gets a strictly later timestamp
+        TimeUnit.MILLISECONDS.sleep(1);
+    }
+
+    private List<Host> queryPlan() {
+        return Lists.newArrayList(policy.newQueryPlan("ks", statement));
+    }
+}
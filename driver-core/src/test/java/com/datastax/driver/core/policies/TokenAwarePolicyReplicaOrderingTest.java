@@ -0,0 +1,113 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.*;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TokenAwarePolicyReplicaOrderingTest {
+
+    @Mock
+    Cluster cluster;
+
+    @Mock
+    Metadata metadata;
+
+    @Mock
+    Host host1, host2, host3;
+
+    @Mock
+    PerHostPercentileTracker latencyTracker;
+
+    @Mock
+    LoadBalancingPolicy childPolicy;
+
+    Statement statement = new SimpleStatement("irrelevant")
+            .setRoutingKey(ByteBuffer.wrap(new byte[]{1, 2, 3}))
+            .setKeyspace("ks");
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        Configuration configuration = mock(Configuration.class);
+        ProtocolOptions protocolOptions = mock(ProtocolOptions.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(cluster.getConfiguration()).thenReturn(configuration);
+        when(configuration.getProtocolOptions()).thenReturn(protocolOptions);
+        when(configuration.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        when(protocolOptions.getProtocolVersion()).thenReturn(ProtocolVersion.NEWEST_SUPPORTED);
+
+        when(metadata.getReplicas(anyString(), any(ByteBuffer.class))).thenReturn(ImmutableSet.of(host1, host2, host3));
+        for (Host host : Lists.newArrayList(host1, host2, host3)) {
+            when(host.isUp()).thenReturn(true);
+            when(childPolicy.distance(host)).thenReturn(HostDistance.LOCAL);
+        }
+        when(childPolicy.newQueryPlan(anyString(), any(Statement.class))).thenReturn(Collections.<Host>emptyList().iterator());
+    }
+
+    @Test(groups = "unit")
+    public void should_order_replicas_by_in_flight_requests_and_latency() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, latencyTracker);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+
+        // same latency: least busy first
+        latency(host1, 10);
+        latency(host2, 10);
+        latency(host3, 10);
+        when(host1.getInFlightQueries()).thenReturn(50);
+        when(host2.getInFlightQueries()).thenReturn(0);
+        when(host3.getInFlightQueries()).thenReturn(10);
+        assertThat(queryPlan(policy)).containsExactly(host2, host3, host1);
+
+        // a slow replica goes last even if it is idle
+        TokenAwarePolicy policy2 = new TokenAwarePolicy(childPolicy, latencyTracker);
+        policy2.init(cluster, Lists.newArrayList(host1, host2, host3));
+        latency(host1, 10);
+        latency(host2, 1000);
+        latency(host3, 20);
+        when(host1.getInFlightQueries()).thenReturn(5);
+        when(host2.getInFlightQueries()).thenReturn(0);
+        when(host3.getInFlightQueries()).thenReturn(5);
+        assertThat(queryPlan(policy2)).containsExactly(host1, host3, host2);
+    }
+
+    @Test(groups = "unit")
+    public void should_assume_replicas_without_latency_data_are_as_fast_as_fastest_replica() {
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, latencyTracker);
+        policy.init(cluster, Lists.newArrayList(host1, host2, host3));
+        latency(host1, 100);
+        latency(host2, -1);
+        latency(host3, 10);
+        when(host1.getInFlightQueries()).thenReturn(0);
+        when(host2.getInFlightQueries()).thenReturn(2);
+        when(host3.getInFlightQueries()).thenReturn(1);
+        assertThat(queryPlan(policy)).containsExactly(host3, host2, host1);
+    }
+
+    private void latency(Host host, long latency) {
+        when(latencyTracker.getLatencyAtPercentile(host, null, null, 99.0)).thenReturn(latency);
+    }
+
+    private List<Host> queryPlan(TokenAwarePolicy policy) {
+        return Lists.newArrayList(Iterators.limit(policy.newQueryPlan("ks", statement), 3));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.reactive;
+
+import com.datastax.driver.core.*;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.reactivestreams.Subscriber;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Emits the rows of a continuous paging query.
+ * <p/>
+ * The query is executed on the first request, and the next page is only dequeued with
+ * {@link AsyncContinuousPagingResult#nextPage()} once the rows of the current page have been emitted and there is
+ * outstanding demand. Since the driver stops reading from the connection when too many pages are queued, a slow
+ * subscriber slows the server down instead of making the client buffer the whole result.
+ */
+class ContinuousPagingSubscription extends RowSubscription {
+
+    private final ContinuousPagingSession session;
+    private final Statement statement;
+    private final ContinuousPagingOptions options;
+
+    private final AtomicBoolean fetching = new AtomicBoolean();
+    private volatile AsyncContinuousPagingResult received;
+    private volatile ListenableFuture<AsyncContinuousPagingResult> pendingFetch;
+
+    // Only accessed from the drain loop
+    private AsyncContinuousPagingResult current;
+    private Iterator<Row> rows = Collections.<Row>emptyList().iterator();
+
+    ContinuousPagingSubscription(Subscriber<? super Row> subscriber, ContinuousPagingSession session,
+                                 Statement statement, ContinuousPagingOptions options) {
+        super(subscriber);
+        this.session = session;
+        this.statement = statement;
+        this.options = options;
+    }
+
+    @Override
+    Row poll() {
+        if (!rows.hasNext()) {
+            AsyncContinuousPagingResult page = received;
+            if (page == current)
+                return null;
+            current = page;
+            rows = page.currentPage().iterator();
+            if (!rows.hasNext())
+                return null;
+        }
+        return rows.next();
+    }
+
+    @Override
+    boolean isComplete() {
+        return current != null && current == received && current.isLast() && !rows.hasNext();
+    }
+
+    @Override
+    void fetch(long demand) {
+        // Only one page can be requested at a time, and only once the previous one has been switched to
+        if (rows.hasNext() || current != received || (current != null && current.isLast()))
+            return;
+        if (!fetching.compareAndSet(false, true))
+            return;
+
+        ListenableFuture<AsyncContinuousPagingResult> future = (current == null)
+                ? session.executeContinuouslyAsync(statement, options)
+                : current.nextPage();
+        pendingFetch = future;
+        Futures.addCallback(future, new FutureCallback<AsyncContinuousPagingResult>() {
+            @Override
+            public void onSuccess(AsyncContinuousPagingResult result) {
+                received = result;
+                pendingFetch = null;
+                fetching.set(false);
+                onFetched();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                pendingFetch = null;
+                fetching.set(false);
+                onFetchFailed(t);
+            }
+        });
+    }
+
+    @Override
+    void onCancel() {
+        AsyncContinuousPagingResult page = received;
+        if (page != null) {
+            // Stops the server from sending more pages
+            page.cancel();
+        } else {
+            ListenableFuture<AsyncContinuousPagingResult> future = pendingFetch;
+            if (future != null)
+                future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.reactive;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Emits the rows of a regular (paged) query.
+ * <p/>
+ * The query is executed on the first request, and subsequent pages are fetched with
+ * {@link ResultSet#fetchMoreResults()} only when the outstanding demand exceeds the rows that are already buffered.
+ * {@link ResultSet#one()} is only called when rows are available without fetching, so it never blocks.
+ */
+class ResultSetSubscription extends RowSubscription {
+
+    private final Session session;
+    private final Statement statement;
+
+    private final AtomicBoolean fetching = new AtomicBoolean();
+    private volatile ResultSet resultSet;
+    private volatile ListenableFuture<ResultSet> pendingFetch;
+
+    ResultSetSubscription(Subscriber<? super Row> subscriber, Session session, Statement statement) {
+        super(subscriber);
+        this.session = session;
+        this.statement = statement;
+    }
+
+    @Override
+    Row poll() {
+        ResultSet rs = resultSet;
+        return rs != null && rs.getAvailableWithoutFetching() > 0 ? rs.one() : null;
+    }
+
+    @Override
+    boolean isComplete() {
+        ResultSet rs = resultSet;
+        return rs != null && rs.getAvailableWithoutFetching() == 0 && rs.isFullyFetched();
+    }
+
+    @Override
+    void fetch(long demand) {
+        ResultSet rs = resultSet;
+        if (rs != null && (rs.isFullyFetched() || rs.getAvailableWithoutFetching() >= demand))
+            return;
+        if (!fetching.compareAndSet(false, true))
+            return;
+
+        ListenableFuture<ResultSet> future = (rs == null)
+                ? session.executeAsync(statement)
+                : rs.fetchMoreResults();
+        pendingFetch = future;
+        Futures.addCallback(future, new FutureCallback<ResultSet>() {
+            @Override
+            public void onSuccess(ResultSet result) {
+                resultSet = result;
+                pendingFetch = null;
+                fetching.set(false);
+                onFetched();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                pendingFetch = null;
+                fetching.set(false);
+                onFetchFailed(t);
+            }
+        });
+    }
+
+    @Override
+    void onCancel() {
+        ListenableFuture<ResultSet> future = pendingFetch;
+        if (future != null)
+            future.cancel(true);
+    }
+}
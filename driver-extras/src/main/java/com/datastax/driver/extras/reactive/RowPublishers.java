@@ -0,0 +1,88 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.reactive;
+
+import com.datastax.driver.core.*;
+import com.google.common.base.Preconditions;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+/**
+ * Factory methods to expose query results as Reactive Streams {@link Publisher}s.
+ * <p/>
+ * The returned publishers are <em>cold</em>: the query is executed once per subscriber, when that subscriber
+ * first requests rows. Pages are then fetched according to the subscriber's demand, so that only a bounded number of
+ * rows is ever buffered on the client, no matter how large the result is.
+ * <p/>
+ * Note that rows are usually emitted from the driver's internal I/O threads: subscribers must not block in
+ * {@link Subscriber#onNext(Object)}, but rather hand off expensive processing to another executor.
+ * <p/>
+ * This class requires the <a href="http://www.reactive-streams.org/">Reactive Streams</a> API in the classpath:
+ * <pre>
+ * &lt;dependency&gt;
+ *   &lt;groupId&gt;org.reactivestreams&lt;/groupId&gt;
+ *   &lt;artifactId&gt;reactive-streams&lt;/artifactId&gt;
+ *   &lt;version&gt;1.0.0&lt;/version&gt;
+ * &lt;/dependency&gt;
+ * </pre>
+ */
+public class RowPublishers {
+
+    private RowPublishers() {
+    }
+
+    /**
+     * Returns a publisher that emits the rows of a regular query.
+     * <p/>
+     * The first page is requested when the subscriber first signals demand; each subsequent page is requested
+     * (with {@link ResultSet#fetchMoreResults()}) as soon as the outstanding demand exceeds the number of rows that
+     * were already fetched. The size of the pages is controlled by the statement's fetch size.
+     *
+     * @param session   the session to execute the query with.
+     * @param statement the statement to execute.
+     * @return the publisher.
+     */
+    public static Publisher<Row> publish(final Session session, final Statement statement) {
+        Preconditions.checkNotNull(session);
+        Preconditions.checkNotNull(statement);
+        return new Publisher<Row>() {
+            @Override
+            public void subscribe(Subscriber<? super Row> subscriber) {
+                Preconditions.checkNotNull(subscriber);
+                subscriber.onSubscribe(new ResultSetSubscription(subscriber, session, statement));
+            }
+        };
+    }
+
+    /**
+     * Returns a publisher that emits the rows of a continuous paging query.
+     * <p/>
+     * The first page is requested when the subscriber first signals demand. Subsequent pages are pushed by the
+     * server, but the driver only dequeues them as the subscriber requests more rows; when the subscriber falls
+     * behind, pages accumulate in the driver's bounded queue and the connection stops being read, which in turn
+     * slows the server down. Cancelling the subscription cancels the continuous query.
+     *
+     * @param session   the session to execute the query with.
+     * @param statement the statement to execute.
+     * @param options   the continuous paging options.
+     * @return the publisher.
+     * @see ContinuousPagingSession#executeContinuouslyAsync(Statement, ContinuousPagingOptions)
+     */
+    public static Publisher<Row> publishContinuously(final ContinuousPagingSession session, final Statement statement,
+                                                     final ContinuousPagingOptions options) {
+        Preconditions.checkNotNull(session);
+        Preconditions.checkNotNull(statement);
+        Preconditions.checkNotNull(options);
+        return new Publisher<Row>() {
+            @Override
+            public void subscribe(Subscriber<? super Row> subscriber) {
+                Preconditions.checkNotNull(subscriber);
+                subscriber.onSubscribe(new ContinuousPagingSubscription(subscriber, session, statement, options));
+            }
+        };
+    }
+}
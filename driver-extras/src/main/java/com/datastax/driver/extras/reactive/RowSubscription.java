@@ -0,0 +1,138 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.reactive;
+
+import com.datastax.driver.core.Row;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for subscriptions that emit rows from paged results.
+ * <p/>
+ * Signals to the subscriber are serialized by a drain loop: whichever thread enters it (a subscriber calling
+ * {@link #request(long)}, or a driver I/O thread completing a fetch) emits as many buffered rows as the outstanding
+ * demand allows, then asks the subclass to fetch more data if that demand is not satisfied yet.
+ */
+abstract class RowSubscription implements Subscription {
+
+    private final Subscriber<? super Row> subscriber;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+
+    // Only accessed from the drain loop
+    private boolean done;
+
+    RowSubscription(Subscriber<? super Row> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Returns the next row that is available without blocking, or {@code null} if there is none.
+     * Only called from the drain loop.
+     */
+    abstract Row poll();
+
+    /**
+     * Whether all rows have been returned by {@link #poll()}. Only called from the drain loop.
+     */
+    abstract boolean isComplete();
+
+    /**
+     * Starts fetching more rows if fewer than {@code demand} rows are available and no fetch is already in progress.
+     * Must not block; implementations call {@link #onFetched()} or {@link #onFetchFailed(Throwable)} when the fetch
+     * completes. Only called from the drain loop.
+     */
+    abstract void fetch(long demand);
+
+    /**
+     * Releases the resources held by this subscription, called once when the subscriber cancels.
+     */
+    abstract void onCancel();
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            // Reactive Streams rule 3.9
+            onFetchFailed(new IllegalArgumentException("Requested number of rows must be strictly positive (was " + n + ")"));
+            return;
+        }
+        long current, next;
+        do {
+            current = requested.get();
+            next = current + n;
+            if (next < 0)
+                next = Long.MAX_VALUE;
+        } while (!requested.compareAndSet(current, next));
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            onCancel();
+        }
+    }
+
+    void onFetched() {
+        drain();
+    }
+
+    void onFetchFailed(Throwable t) {
+        error = t;
+        drain();
+    }
+
+    final void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        do {
+            if (!cancelled && !done)
+                drainOnce();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce() {
+        Throwable t = error;
+        if (t != null) {
+            done = true;
+            subscriber.onError(t);
+            return;
+        }
+
+        long demand = requested.get();
+        long emitted = 0;
+        while (emitted != demand && !cancelled) {
+            Row row = poll();
+            if (row == null)
+                break;
+            subscriber.onNext(row);
+            emitted += 1;
+        }
+        if (emitted != 0 && demand != Long.MAX_VALUE)
+            demand = requested.addAndGet(-emitted);
+
+        if (cancelled)
+            return;
+
+        if (isComplete()) {
+            done = true;
+            subscriber.onComplete();
+        } else if (demand > 0) {
+            fetch(demand);
+        }
+    }
+}
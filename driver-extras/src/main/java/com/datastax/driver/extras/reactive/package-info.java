@@ -0,0 +1,12 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+/**
+ * This package contains <a href="http://www.reactive-streams.org/">Reactive Streams</a>
+ * {@link org.reactivestreams.Publisher Publisher} implementations that emit the rows of a query, fetching
+ * pages only as fast as subscribers request them.
+ */
+package com.datastax.driver.extras.reactive;
@@ -0,0 +1,224 @@
+/*
+ *      Copyright (C) 2012-2017 DataStax Inc.
+ *
+ *      This software can be used solely with DataStax Enterprise. Please consult the license at
+ *      http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.reactive;
+
+import com.datastax.driver.core.*;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class RowPublishersTest {
+
+    private final Statement statement = new SimpleStatement("SELECT * FROM foo");
+
+    @Test(groups = "unit")
+    public void should_fetch_pages_according_to_demand() {
+        PagedResult result = new PagedResult(3, 10);
+        ResultSetFuture firstPage = result.firstPage();
+        Session session = mock(Session.class);
+        when(session.executeAsync(any(Statement.class))).thenReturn(firstPage);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        RowPublishers.publish(session, statement).subscribe(subscriber);
+        verify(session, never()).executeAsync(any(Statement.class));
+
+        subscriber.subscription.request(5);
+        assertThat(subscriber.rows).hasSize(5);
+        assertThat(result.fetchedPages).isEqualTo(1);
+
+        subscriber.subscription.request(10);
+        assertThat(subscriber.rows).hasSize(15);
+        assertThat(result.fetchedPages).isEqualTo(2);
+        assertThat(subscriber.completed).isFalse();
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.rows).hasSize(30);
+        assertThat(result.fetchedPages).isEqualTo(3);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.error).isNull();
+        for (int i = 0; i < 30; i++)
+            assertThat(subscriber.rows.get(i).getInt(0)).isEqualTo(i);
+        verify(session, times(1)).executeAsync(statement);
+    }
+
+    @Test(groups = "unit")
+    public void should_stop_emitting_when_cancelled() {
+        PagedResult result = new PagedResult(3, 10);
+        ResultSetFuture firstPage = result.firstPage();
+        Session session = mock(Session.class);
+        when(session.executeAsync(any(Statement.class))).thenReturn(firstPage);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        RowPublishers.publish(session, statement).subscribe(subscriber);
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(100);
+
+        assertThat(subscriber.rows).hasSize(5);
+        assertThat(result.fetchedPages).isEqualTo(1);
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_signal_error_if_request_is_not_positive() {
+        Session session = mock(Session.class);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        RowPublishers.publish(session, statement).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+        verify(session, never()).executeAsync(any(Statement.class));
+    }
+
+    @Test(groups = "unit")
+    public void should_signal_error_if_query_fails() {
+        Session session = mock(Session.class);
+        RuntimeException failure = new RuntimeException("mock failure");
+        when(session.executeAsync(any(Statement.class))).thenReturn(MockResultSetFuture.failed(failure));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        RowPublishers.publish(session, statement).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.error).isSameAs(failure);
+        assertThat(subscriber.rows).isEmpty();
+    }
+
+    /**
+     * A result set that returns {@code pageCount} pages of {@code pageSize} rows, and records how many pages were
+     * fetched.
+     */
+    static class PagedResult {
+        final ResultSet resultSet = mock(ResultSet.class);
+        final Deque<Row> available = new ArrayDeque<Row>();
+        final int pageCount;
+        final int pageSize;
+        int fetchedPages;
+
+        PagedResult(int pageCount, int pageSize) {
+            this.pageCount = pageCount;
+            this.pageSize = pageSize;
+            when(resultSet.getAvailableWithoutFetching()).thenAnswer(new Answer<Integer>() {
+                @Override
+                public Integer answer(InvocationOnMock invocation) {
+                    return available.size();
+                }
+            });
+            when(resultSet.isFullyFetched()).thenAnswer(new Answer<Boolean>() {
+                @Override
+                public Boolean answer(InvocationOnMock invocation) {
+                    return fetchedPages == PagedResult.this.pageCount;
+                }
+            });
+            when(resultSet.one()).thenAnswer(new Answer<Row>() {
+                @Override
+                public Row answer(InvocationOnMock invocation) {
+                    return available.poll();
+                }
+            });
+            when(resultSet.fetchMoreResults()).thenAnswer(new Answer<Object>() {
+                @Override
+                public Object answer(InvocationOnMock invocation) {
+                    fetchNextPage();
+                    return Futures.immediateFuture(resultSet);
+                }
+            });
+        }
+
+        ResultSetFuture firstPage() {
+            fetchNextPage();
+            return MockResultSetFuture.completed(resultSet);
+        }
+
+        private void fetchNextPage() {
+            for (int i = 0; i < pageSize; i++) {
+                Row row = mock(Row.class);
+                when(row.getInt(0)).thenReturn(fetchedPages * pageSize + i);
+                available.add(row);
+            }
+            fetchedPages += 1;
+        }
+    }
+
+    static class MockResultSetFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+
+        static MockResultSetFuture completed(ResultSet rs) {
+            MockResultSetFuture future = new MockResultSetFuture();
+            future.set(rs);
+            return future;
+        }
+
+        static MockResultSetFuture failed(Throwable t) {
+            MockResultSetFuture future = new MockResultSetFuture();
+            future.setException(t);
+            return future;
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            try {
+                return Uninterruptibles.getUninterruptibly(this);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
+            try {
+                return Uninterruptibles.getUninterruptibly(this, timeout, unit);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    static class RecordingSubscriber implements Subscriber<Row> {
+        final List<Row> rows = new ArrayList<Row>();
+        Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Row row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}